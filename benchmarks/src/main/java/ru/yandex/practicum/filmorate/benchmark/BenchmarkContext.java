@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Поднимает приложение на отдельной H2 в памяти, чтобы каждый прогон начинался с чистой базы,
+ * если бенчмарк не передал свой {@code spring.datasource.url}.
+ * Для JMH веб-сервер не нужен, нагрузочному тесту нужен настоящий Tomcat на свободном порту.
+ * Дополнительные настройки передаются как аргументы командной строки и перекрывают application.properties.
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return run("--spring.main.web-application-type=none", properties);
+    }
+
+    static ConfigurableApplicationContext startServer(String... properties) {
+        return run("--server.port=0", properties);
+    }
+
+    static String memoryUrl() {
+        return "jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    }
+
+    private static ConfigurableApplicationContext run(String mode, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                mode,
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--logging.level.org.zalando.logbook=OFF"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        if (args.stream().noneMatch(arg -> arg.startsWith("--spring.datasource.url="))) {
+            args.add("--spring.datasource.url=" + memoryUrl());
+        }
+        return new SpringApplicationBuilder(FilmorateApplication.class).run(args.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Заполняет базу воспроизводимыми данными: фиксированное зерно, лайки смещены к фильмам с малыми ID,
+ * как у реальных «хитов», друзья выбираются равномерно. У каждого фильма два жанра из шести,
+ * годы выхода равномерно распределены по {@value #YEARS} годам.
+ */
+final class DataSeeder {
+    private static final int BATCH_SIZE = 10_000;
+
+    static final int GENRE_COUNT = 6;
+
+    private static final int MPA_COUNT = 5;
+
+    static final int FIRST_YEAR = 1950;
+
+    static final int YEARS = 75;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Random random = new Random(42);
+
+    DataSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    void seedUsers(int users) {
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= users; i++) {
+            rows.add(new Object[]{"user" + i, "user" + i + "@test.com", "user" + i,
+                    Date.valueOf(LocalDate.of(1990, 1, 1))});
+            flushIfFull("INSERT INTO user_info (name, email, login, birthday) VALUES (?, ?, ?, ?)", rows);
+        }
+        flush("INSERT INTO user_info (name, email, login, birthday) VALUES (?, ?, ?, ?)", rows);
+    }
+
+    void seedFilms(int films) {
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= films; i++) {
+            rows.add(new Object[]{"film" + i, "description " + i, Date.valueOf(LocalDate.of(FIRST_YEAR + i % YEARS, 1, 1)),
+                    90 + i % 60, 1 + i % MPA_COUNT});
+            flushIfFull("INSERT INTO film (name, description, release_date, duration, rating_id) "
+                    + "VALUES (?, ?, ?, ?, ?)", rows);
+        }
+        flush("INSERT INTO film (name, description, release_date, duration, rating_id) VALUES (?, ?, ?, ?, ?)", rows);
+
+        for (int i = 1; i <= films; i++) {
+            rows.add(new Object[]{i, 1 + i % GENRE_COUNT});
+            rows.add(new Object[]{i, 1 + (i + 2) % GENRE_COUNT});
+            flushIfFull("INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)", rows);
+        }
+        flush("INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)", rows);
+    }
+
+    void seedLikes(int users, int films, int likesPerUser) {
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int userId = 1; userId <= users; userId++) {
+            for (long filmId : pick(Math.min(likesPerUser, films), () -> skewedFilmId(films))) {
+                rows.add(new Object[]{filmId, userId});
+                flushIfFull("INSERT INTO film_like (film_id, user_id) VALUES (?, ?)", rows);
+            }
+        }
+        flush("INSERT INTO film_like (film_id, user_id) VALUES (?, ?)", rows);
+        jdbcTemplate.update("UPDATE film SET like_count = "
+                + "(SELECT COUNT(*) FROM film_like WHERE film_like.film_id = film.film_id)");
+    }
+
+    void seedFriendships(int users, int friendsPerUser) {
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int userId = 1; userId <= users; userId++) {
+            int self = userId;
+            for (long friendId : pick(Math.min(friendsPerUser, users - 1), () -> randomOtherUser(users, self))) {
+                rows.add(new Object[]{userId, friendId, false});
+                flushIfFull("INSERT INTO friendship (user_id, friend_id, status) VALUES (?, ?, ?)", rows);
+            }
+        }
+        flush("INSERT INTO friendship (user_id, friend_id, status) VALUES (?, ?, ?)", rows);
+    }
+
+    long randomId(int bound) {
+        return 1 + random.nextInt(bound);
+    }
+
+    private long skewedFilmId(int films) {
+        double r = random.nextDouble();
+        return 1 + (long) (films * r * r);
+    }
+
+    private long randomOtherUser(int users, int self) {
+        long candidate;
+        do {
+            candidate = randomId(users);
+        } while (candidate == self);
+        return candidate;
+    }
+
+    private static Set<Long> pick(int count, LongSupplier supplier) {
+        Set<Long> ids = new HashSet<>();
+        while (ids.size() < count) {
+            ids.add(supplier.getAsLong());
+        }
+        return ids;
+    }
+
+    private void flushIfFull(String sql, List<Object[]> rows) {
+        if (rows.size() >= BATCH_SIZE) {
+            flush(sql, rows);
+        }
+    }
+
+    private void flush(String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+            rows.clear();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка получения одного фильма при последовательной и параллельной сборке карточки.
+ * {@code transport=tcp} ходит в H2 через TCP-сервер на loopback: каждый запрос – сетевой round-trip,
+ * как с настоящей базой; {@code mem} показывает чистую стоимость переключения потоков.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FilmDetailsBenchmark {
+
+    @Param("10000")
+    private int films;
+
+    @Param({"false", "true"})
+    private boolean parallel;
+
+    @Param({"mem", "tcp"})
+    private String transport;
+
+    private Server server;
+
+    private ConfigurableApplicationContext context;
+
+    private FilmStorage filmStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String url = BenchmarkContext.memoryUrl();
+        if (transport.equals("tcp")) {
+            server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+            url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:benchmark-" + UUID.randomUUID()
+                    + ";DB_CLOSE_DELAY=-1";
+        }
+        context = BenchmarkContext.start("spring.datasource.url=" + url,
+                "filmorate.film-details.parallel=" + parallel);
+        DataSeeder seeder = new DataSeeder(context.getBean(JdbcTemplate.class));
+        seeder.seedFilms(films);
+        filmStorage = context.getBean(FilmStorage.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Benchmark
+    public Film getFilmById() {
+        return filmStorage.getFilmById(1 + ThreadLocalRandom.current().nextLong(films));
+    }
+}
@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск по FilmSearchIndex без Spring и базы: индекс заполняется синтетическими фильмами
+ * из слов, собранных из русских слогов, частота слов убывает как у естественного текста.
+ * Режим SampleTime, чтобы в отчёте были перцентили p99 и p99.9.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FilmSearchBenchmark {
+    private static final String[] SYLLABLES = {"ба", "ве", "ги", "до", "ёж", "ка", "ла", "ми", "но", "пу",
+            "ро", "са", "ти", "фе", "хо", "че", "ша", "ю", "ря", "зо", "ну", "ле", "ко", "ста"};
+
+    private static final int QUERIES = 1024;
+
+    @Param("1000000")
+    private int films;
+
+    @Param("20000")
+    private int vocabulary;
+
+    @Param({"word", "prefix", "twoWords"})
+    private String query;
+
+    private FilmSearchIndex filmSearchIndex;
+
+    private String[] queries;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] words = new String[vocabulary];
+        for (int i = 0; i < vocabulary; i++) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 2 + random.nextInt(3);
+            for (int j = 0; j < syllables; j++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words[i] = word.toString();
+        }
+
+        FilmPopularityIndex filmPopularityIndex = new FilmPopularityIndex(null);
+        filmSearchIndex = new FilmSearchIndex(null, filmPopularityIndex);
+        List<Film> batch = new ArrayList<>();
+        for (int i = 1; i <= films; i++) {
+            Film film = new Film();
+            film.setId((long) i);
+            film.setName(capitalize(word(words, random)) + " " + word(words, random));
+            StringBuilder description = new StringBuilder();
+            for (int j = 0; j < 12; j++) {
+                description.append(word(words, random)).append(j % 4 == 3 ? ". " : " ");
+            }
+            film.setDescription(description.toString());
+            batch.add(film);
+            if (batch.size() == 10_000) {
+                filmSearchIndex.filmsSaved(batch);
+                batch.clear();
+            }
+            // лайки у каждого десятого фильма
+            if (i % 10 == 0) {
+                for (int like = random.nextInt(50); like >= 0; like--) {
+                    filmPopularityIndex.likeAdded((long) i, (long) like);
+                }
+            }
+        }
+        filmSearchIndex.filmsSaved(batch);
+
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String word = word(words, random);
+            queries[i] = switch (query) {
+                case "word" -> word;
+                case "prefix" -> prefix(word);
+                default -> word + " " + prefix(word(words, random));
+            };
+        }
+    }
+
+    @Benchmark
+    public List<Long> search() {
+        return filmSearchIndex.search(queries[ThreadLocalRandom.current().nextInt(QUERIES)], 10);
+    }
+
+    /**
+     * Приблизительно закон Ципфа: квадрат равномерного числа смещает выбор к началу словаря.
+     */
+    private static String word(String[] words, Random random) {
+        double uniform = random.nextDouble();
+        return words[(int) (uniform * uniform * words.length)];
+    }
+
+    private static String prefix(String word) {
+        return word.substring(0, Math.min(3, word.length()));
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
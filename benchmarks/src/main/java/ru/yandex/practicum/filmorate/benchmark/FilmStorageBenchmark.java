@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.PopularFilmsFilter;
+import ru.yandex.practicum.filmorate.storage.film.FilmLikeMatrix;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути FilmDbStorage на H2 в памяти. Объём данных задаётся параметрами, например
+ * {@code -p films=100000 -p users=100000 -p likesPerUser=50}; миллион лайков –
+ * {@code -p users=50000 -p likesPerUser=20}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FilmStorageBenchmark {
+
+    @Param("10000")
+    private int films;
+
+    @Param("10000")
+    private int users;
+
+    @Param("20")
+    private int likesPerUser;
+
+    @Param({"sql", "index"})
+    private String popularSource;
+
+    private ConfigurableApplicationContext context;
+
+    private FilmStorage filmStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("filmorate.popular-films.source=" + popularSource);
+        DataSeeder seeder = new DataSeeder(context.getBean(JdbcTemplate.class));
+        seeder.seedUsers(users);
+        seeder.seedFilms(films);
+        seeder.seedLikes(users, films, likesPerUser);
+        context.getBean(FilmPopularityIndex.class).rebuild();
+        context.getBean(FilmLikeMatrix.class).rebuild();
+        filmStorage = context.getBean(FilmStorage.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilms() {
+        return filmStorage.getPopularFilms(10);
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilmsByGenre() {
+        long genreId = 1 + ThreadLocalRandom.current().nextLong(DataSeeder.GENRE_COUNT);
+        return filmStorage.getPopularFilms(10, new PopularFilmsFilter(genreId, null));
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilmsByYear() {
+        int year = DataSeeder.FIRST_YEAR + ThreadLocalRandom.current().nextInt(DataSeeder.YEARS);
+        return filmStorage.getPopularFilms(10, new PopularFilmsFilter(null, year));
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilmsByGenreAndYear() {
+        long genreId = 1 + ThreadLocalRandom.current().nextLong(DataSeeder.GENRE_COUNT);
+        int year = DataSeeder.FIRST_YEAR + ThreadLocalRandom.current().nextInt(DataSeeder.YEARS);
+        return filmStorage.getPopularFilms(10, new PopularFilmsFilter(genreId, year));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Collection<Film> getAllFilms() {
+        return filmStorage.getAllFilms();
+    }
+
+    @Benchmark
+    public Film getFilmById() {
+        return filmStorage.getFilmById(1 + ThreadLocalRandom.current().nextLong(films));
+    }
+
+    /**
+     * Лайк случайной пары фильм–юзер, а если он уже стоит – снятие, чтобы объём film_like не рос от прогона к прогону.
+     */
+    @Benchmark
+    public boolean toggleLike() {
+        long filmId = 1 + ThreadLocalRandom.current().nextLong(films);
+        long userId = 1 + ThreadLocalRandom.current().nextLong(users);
+        return filmStorage.addLike(filmId, userId) || filmStorage.removeLike(filmId, userId);
+    }
+
+    @Benchmark
+    public Film addFilm() {
+        Film film = new Film();
+        film.setName("Benchmark");
+        film.setDescription("Benchmark film");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        film.setMpa(new MpaRating(1L, null));
+        return filmStorage.addFilm(film);
+    }
+}
@@ -0,0 +1,171 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Нагрузочный тест по HTTP: поднимает приложение с Tomcat сначала на пуле платформенных потоков,
+ * затем на виртуальных потоках и держит заданное число одновременных клиентов на /films и /users.
+ * JMH здесь не подходит – интересна пропускная способность всего стека при сотнях соединений, а не одна операция.
+ * <p>
+ * Параметры передаются как {@code key=value}: {@code threads=platform|virtual|both}, {@code concurrency},
+ * {@code seconds}, {@code warmup}, {@code users}, {@code films}.
+ */
+public final class HttpLoadTest {
+
+    private HttpLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String threads = options.getOrDefault("threads", "both");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "400"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "15"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int users = Integer.parseInt(options.getOrDefault("users", "10000"));
+        int films = Integer.parseInt(options.getOrDefault("films", "10000"));
+
+        List<Boolean> modes = switch (threads) {
+            case "platform" -> List.of(false);
+            case "virtual" -> List.of(true);
+            default -> List.of(false, true);
+        };
+
+        System.out.printf("%-9s %6s %10s %10s %9s %9s %9s %7s%n",
+                "threads", "conc", "requests", "req/s", "p50, ms", "p99, ms", "max, ms", "errors");
+        for (boolean virtual : modes) {
+            try (ConfigurableApplicationContext context = BenchmarkContext.startServer(
+                    "spring.threads.virtual.enabled=" + virtual)) {
+                DataSeeder seeder = new DataSeeder(context.getBean(JdbcTemplate.class));
+                seeder.seedUsers(users);
+                seeder.seedFilms(films);
+                seeder.seedLikes(users, films, 5);
+                seeder.seedFriendships(users, 10);
+
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                Target target = new Target(port, users, films);
+                run(target, concurrency, warmup);
+                Result result = run(target, concurrency, seconds);
+                System.out.printf("%-9s %6d %10d %10.0f %9.2f %9.2f %9.2f %7d%n",
+                        virtual ? "virtual" : "platform", concurrency, result.requests(),
+                        result.requests() / (double) seconds, result.percentile(0.50), result.percentile(0.99),
+                        result.percentile(1.0), result.errors());
+            }
+        }
+    }
+
+    private static Result run(Target target, int concurrency, int seconds) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(clients)
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .build()) {
+            List<Future<Result>> futures = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(clients.submit(() -> drive(client, target, deadline)));
+            }
+            Result total = new Result(new long[0], 0);
+            for (Future<Result> future : futures) {
+                total = total.merge(future.get());
+            }
+            return total;
+        }
+    }
+
+    private static Result drive(HttpClient client, Target target, long deadline) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        int errors = 0;
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = HttpRequest.newBuilder(target.next())
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            long start = System.nanoTime();
+            try {
+                HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() != 200) {
+                    errors++;
+                    continue;
+                }
+            } catch (Exception e) {
+                errors++;
+                continue;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return new Result(Arrays.copyOf(latencies, count), errors);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Смесь запросов: страницы и карточки фильмов, страницы юзеров и списки друзей в равных долях.
+     */
+    private record Target(int port, int users, int films) {
+
+        URI next() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String path = switch (random.nextInt(4)) {
+                case 0 -> "/films?after=" + random.nextInt(films) + "&limit=20";
+                case 1 -> "/films/" + (1 + random.nextInt(films));
+                case 2 -> "/users?after=" + random.nextInt(users) + "&limit=20";
+                default -> "/users/" + (1 + random.nextInt(users)) + "/friends";
+            };
+            return URI.create("http://localhost:" + port + path);
+        }
+    }
+
+    private record Result(long[] latencies, int errors) {
+
+        long requests() {
+            return latencies.length;
+        }
+
+        Result merge(Result other) {
+            long[] merged = Arrays.copyOf(latencies, latencies.length + other.latencies.length);
+            System.arraycopy(other.latencies, 0, merged, latencies.length, other.latencies.length);
+            return new Result(merged, errors + other.errors);
+        }
+
+        double percentile(double quantile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Те же операции на хранилищах профиля memory. Запускается в четыре потока,
+ * чтобы заодно видеть конкуренцию за мониторы множеств лайков и друзей.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InMemoryStorageBenchmark {
+
+    @Param("10000")
+    private int films;
+
+    @Param("10000")
+    private int users;
+
+    @Param("20")
+    private int likesPerUser;
+
+    @Param("10")
+    private int friendsPerUser;
+
+    private ConfigurableApplicationContext context;
+
+    private FilmStorage filmStorage;
+
+    private UserStorage userStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("spring.profiles.active=memory");
+        filmStorage = context.getBean(FilmStorage.class);
+        userStorage = context.getBean(UserStorage.class);
+        FilmService filmService = context.getBean(FilmService.class);
+
+        for (int i = 1; i <= users; i++) {
+            User user = new User();
+            user.setLogin("user" + i);
+            user.setEmail("user" + i + "@test.com");
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userStorage.addUser(user);
+        }
+        for (int i = 1; i <= films; i++) {
+            filmStorage.addFilm(newFilm("film" + i));
+        }
+
+        Random random = new Random(42);
+        for (long userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < likesPerUser; i++) {
+                double r = random.nextDouble();
+                filmService.addLike(1 + (long) (films * r * r), userId);
+            }
+            for (int i = 0; i < friendsPerUser; i++) {
+                long friendId = 1 + random.nextInt(users);
+                if (friendId != userId) {
+                    userStorage.addFriend(userId, friendId);
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilms() {
+        return filmStorage.getPopularFilms(10);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Collection<Film> getAllFilms() {
+        return filmStorage.getAllFilms();
+    }
+
+    @Benchmark
+    public boolean toggleLike() {
+        long filmId = 1 + ThreadLocalRandom.current().nextLong(films);
+        long userId = 1 + ThreadLocalRandom.current().nextLong(users);
+        return filmStorage.addLike(filmId, userId) || filmStorage.removeLike(filmId, userId);
+    }
+
+    @Benchmark
+    public Film addFilm() {
+        return filmStorage.addFilm(newFilm("Benchmark"));
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        return userStorage.getCommonFriends(1 + ThreadLocalRandom.current().nextLong(users),
+                1 + ThreadLocalRandom.current().nextLong(users));
+    }
+
+    private static Film newFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Benchmark film");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        film.setMpa(new MpaRating(1L, null));
+        return film;
+    }
+}
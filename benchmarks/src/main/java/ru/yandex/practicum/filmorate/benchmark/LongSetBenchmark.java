@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.LongHashSet;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LongHashSet против HashSet&lt;Long&gt; на типичных размерах множеств лайков и друзей.
+ * Половина проверяемых ID есть в множестве, половина нет. Расход памяти печатает {@link LongSetFootprint},
+ * аллокации при заполнении видны с {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LongSetBenchmark {
+    private static final int PROBES = 1024;
+
+    @Param({"16", "1000", "100000"})
+    private int size;
+
+    private long[] values;
+
+    private long[] probes;
+
+    private LongHashSet longHashSet;
+
+    private Set<Long> hashSet;
+
+    private int probe;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        values = random.longs(size, 1, Integer.MAX_VALUE).toArray();
+        probes = new long[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = i % 2 == 0 ? values[random.nextInt(size)] : -1 - random.nextInt(Integer.MAX_VALUE);
+        }
+
+        longHashSet = new LongHashSet();
+        hashSet = new HashSet<>();
+        for (long value : values) {
+            longHashSet.add(value);
+            hashSet.add(value);
+        }
+    }
+
+    @Benchmark
+    public boolean containsLongHashSet() {
+        return longHashSet.contains(nextProbe());
+    }
+
+    @Benchmark
+    public boolean containsHashSet() {
+        return hashSet.contains(nextProbe());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public LongHashSet fillLongHashSet() {
+        LongHashSet set = new LongHashSet();
+        for (long value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Set<Long> fillHashSet() {
+        Set<Long> set = new HashSet<>();
+        for (long value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    private long nextProbe() {
+        probe = (probe + 1) & (PROBES - 1);
+        return probes[probe];
+    }
+}
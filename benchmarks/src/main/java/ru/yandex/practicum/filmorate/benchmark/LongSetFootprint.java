@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jol.info.GraphLayout;
+import ru.yandex.practicum.filmorate.model.LongHashSet;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Печатает занимаемую память LongHashSet и HashSet&lt;Long&gt; в байтах на элемент (по графу объектов JOL).
+ * Запуск: {@code mvn -f benchmarks/pom.xml compile exec:java
+ * -Dexec.mainClass=ru.yandex.practicum.filmorate.benchmark.LongSetFootprint}.
+ */
+public final class LongSetFootprint {
+
+    private LongSetFootprint() {
+    }
+
+    public static void main(String[] args) {
+        System.out.printf("%10s %18s %18s%n", "size", "LongHashSet B/elem", "HashSet<Long> B/elem");
+        for (int size : new int[]{16, 1_000, 100_000, 1_000_000}) {
+            long[] values = new Random(42).longs(size, 1_000, Integer.MAX_VALUE).toArray();
+            LongHashSet longHashSet = new LongHashSet();
+            Set<Long> hashSet = new HashSet<>();
+            for (long value : values) {
+                longHashSet.add(value);
+                hashSet.add(value);
+            }
+
+            System.out.printf("%10d %18.1f %18.1f%n", size,
+                    (double) GraphLayout.parseInstance(longHashSet).totalSize() / size,
+                    (double) GraphLayout.parseInstance(hashSet).totalSize() / size);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.SingleFlight;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceCache;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+
+/**
+ * Таймеры методов хранилищ и сервисов (аннотация @Timed на классе), счётчики кэшей справочников
+ * и склеенных запросов фильма.
+ * Пул соединений Hikari и HTTP-запросы Spring Boot инструментирует сам.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder referenceCacheMetrics(GenreDbStorage genreDbStorage, MpaDbStorage mpaDbStorage) {
+        return registry -> {
+            bindCache(registry, "genre", genreDbStorage.getCache());
+            bindCache(registry, "mpa", mpaDbStorage.getCache());
+        };
+    }
+
+    @Bean
+    public MeterBinder filmLookupMetrics(FilmService filmService) {
+        return registry -> bindSingleFlight(registry, "film", filmService.getFilmLookups());
+    }
+
+    private static void bindSingleFlight(MeterRegistry registry, String name, SingleFlight<?, ?> singleFlight) {
+        FunctionCounter.builder("filmorate.singleflight.calls", singleFlight, SingleFlight::getExecuted)
+                .tag("name", name)
+                .tag("result", "executed")
+                .register(registry);
+        FunctionCounter.builder("filmorate.singleflight.calls", singleFlight, SingleFlight::getCoalesced)
+                .tag("name", name)
+                .tag("result", "coalesced")
+                .register(registry);
+    }
+
+    private static void bindCache(MeterRegistry registry, String name, ReferenceCache<?> cache) {
+        FunctionCounter.builder("filmorate.reference.cache.requests", cache, ReferenceCache::getHits)
+                .tag("cache", name)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("filmorate.reference.cache.requests", cache, ReferenceCache::getMisses)
+                .tag("cache", name)
+                .tag("result", "miss")
+                .register(registry);
+    }
+}
@@ -1,13 +1,29 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.annotations.ValidationGroup;
+import ru.yandex.practicum.filmorate.exception.BadRequestException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.LikeBatchResult;
+import ru.yandex.practicum.filmorate.model.LikeEvent;
+import ru.yandex.practicum.filmorate.model.PopularFilmsFilter;
+import ru.yandex.practicum.filmorate.service.ContentVersions;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
 
@@ -18,13 +34,31 @@ import java.util.List;
 public class FilmController {
     private final FilmService filmService;
 
-    @GetMapping
-    public Collection<Film> findAll() {
-        return filmService.getAllFilms();
+    private final NdjsonWriter ndjsonWriter;
+
+    private final ObjectMapper objectMapper;
+
+    private final ContentVersions contentVersions;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Collection<Film> findAll(@RequestParam(required = false) Long after,
+                                    @RequestParam(required = false) @Positive @Max(1000) Integer limit) {
+        if (after == null && limit == null) {
+            return filmService.getAllFilms();
+        }
+        return filmService.getFilmsPage(after, limit);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return ndjsonWriter.write(filmService::streamAllFilms);
     }
 
     @GetMapping("/{id}")
-    public Film findById(@PathVariable Long id) {
+    public Film findById(@PathVariable Long id, WebRequest request) {
+        if (isNotModified(request, contentVersions.film(id))) {
+            return null;
+        }
         return filmService.getFilmById(id);
     }
 
@@ -34,10 +68,24 @@ public class FilmController {
         return filmService.addFilm(film);
     }
 
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ImportResult importFilms(InputStream body) throws IOException {
+        try (MappingIterator<Film> films = objectMapper.readerFor(Film.class).readValues(body)) {
+            return filmService.importFilms(films);
+        }
+    }
+
+    @PostMapping(value = "/likes/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public LikeBatchResult applyLikes(InputStream body) throws IOException {
+        try (MappingIterator<LikeEvent> events = objectMapper.readerFor(LikeEvent.class).readValues(body)) {
+            return filmService.applyLikeEvents(events);
+        }
+    }
+
     @Validated({ValidationGroup.OnUpdate.class})
     @PutMapping
     public Film update(@Valid @RequestBody Film film) {
-        Film existingFilm = filmService.getFilmById(film.getId());
+        Film existingFilm = filmService.getFilmForUpdate(film.getId());
 
         if (film.getName() != null) {
             existingFilm.setName(film.getName());
@@ -65,8 +113,33 @@ public class FilmController {
         filmService.removeLike(id, userId);
     }
 
+    @GetMapping("/search")
+    public List<Film> searchFilms(@RequestParam(defaultValue = "") String q,
+                                  @RequestParam(defaultValue = "10") @Positive @Max(1000) int count) {
+        return filmService.searchFilms(q, count);
+    }
+
     @GetMapping("/popular")
-    public List<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
-        return filmService.getPopularFilms(count);
+    public List<Film> getPopularFilms(@RequestParam(defaultValue = "10") @Positive @Max(1000) int count,
+                                      @RequestParam(required = false) String window,
+                                      @RequestParam(required = false) @Positive Long genreId,
+                                      @RequestParam(required = false) @Positive Integer year,
+                                      WebRequest request) {
+        PopularFilmsFilter filter = new PopularFilmsFilter(genreId, year);
+        // тренды меняются и со временем, когда лайки выпадают из окна, поэтому версия к ним не применяется
+        if (window != null) {
+            if (!filter.isEmpty()) {
+                throw new BadRequestException("Фильтры по жанру и году для трендов не поддерживаются.");
+            }
+            return filmService.getTrendingFilms(window, count);
+        }
+        if (isNotModified(request, contentVersions.popularFilms())) {
+            return null;
+        }
+        return filmService.getPopularFilms(count, filter);
+    }
+
+    private boolean isNotModified(WebRequest request, ContentVersions.Stamp stamp) {
+        return request.checkNotModified(contentVersions.eTag(stamp));
     }
 }
\ No newline at end of file
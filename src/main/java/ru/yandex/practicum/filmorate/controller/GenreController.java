@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -16,13 +17,15 @@ import java.util.Collection;
 public class GenreController {
     private final GenreService genreService;
 
+    private final ReferenceResponses referenceResponses;
+
     @GetMapping
-    public Collection<Genre> findAll() {
-        return genreService.getAllGenres();
+    public ResponseEntity<Collection<Genre>> findAll() {
+        return referenceResponses.cached(genreService.getAllGenres());
     }
 
     @GetMapping("/{id}")
-    public Genre findById(@PathVariable Long id) {
-        return genreService.getGenreById(id);
+    public ResponseEntity<Genre> findById(@PathVariable Long id) {
+        return referenceResponses.cached(genreService.getGenreById(id));
     }
 }
@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -16,13 +17,15 @@ import java.util.Collection;
 public class MpaController {
     private final MpaService mpaService;
 
+    private final ReferenceResponses referenceResponses;
+
     @GetMapping
-    public Collection<MpaRating> findAll() {
-        return mpaService.getAllMpa();
+    public ResponseEntity<Collection<MpaRating>> findAll() {
+        return referenceResponses.cached(mpaService.getAllMpa());
     }
 
     @GetMapping("/{id}")
-    public MpaRating findById(@PathVariable Long id) {
-        return mpaService.getMpaById(id);
+    public ResponseEntity<MpaRating> findById(@PathVariable Long id) {
+        return referenceResponses.cached(mpaService.getMpaById(id));
     }
 }
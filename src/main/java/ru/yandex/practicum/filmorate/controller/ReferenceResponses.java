@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Ответы справочников (жанры, рейтинги MPA). Справочник меняется редко: клиенты и прокси держат его
+ * у себя и увидят новые строки не позже чем через {@code filmorate.http.reference-max-age}.
+ * Ошибки не кэшируются.
+ */
+@Component
+public class ReferenceResponses {
+
+    @Value("${filmorate.http.reference-max-age:PT1H}")
+    private Duration maxAge;
+
+    public <T> ResponseEntity<T> cached(T body) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(maxAge).cachePublic())
+                .body(body);
+    }
+}
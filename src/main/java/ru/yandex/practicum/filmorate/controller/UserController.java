@@ -1,11 +1,19 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.annotations.ValidationGroup;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ContentVersions;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.Collection;
@@ -18,9 +26,22 @@ import java.util.List;
 public class UserController {
     private final UserService userService;
 
-    @GetMapping
-    public Collection<User> findAll() {
-        return userService.getAllUsers();
+    private final NdjsonWriter ndjsonWriter;
+
+    private final ContentVersions contentVersions;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Collection<User> findAll(@RequestParam(required = false) Long after,
+                                    @RequestParam(required = false) @Positive @Max(1000) Integer limit) {
+        if (after == null && limit == null) {
+            return userService.getAllUsers();
+        }
+        return userService.getUsersPage(after, limit);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return ndjsonWriter.write(userService::streamAllUsers);
     }
 
     @GetMapping("/{id}")
@@ -52,7 +73,7 @@ public class UserController {
             existingUser.setBirthday(user.getBirthday());
         }
 
-        return userService.updateUser(user);
+        return userService.updateUser(existingUser);
     }
 
     @PutMapping("/{id}/friends/{friendId}")
@@ -66,7 +87,10 @@ public class UserController {
     }
 
     @GetMapping("/{id}/friends")
-    public List<User> getFriends(@PathVariable Long id) {
+    public List<User> getFriends(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(contentVersions.eTag(contentVersions.friends(id)))) {
+            return null;
+        }
         return userService.getFriends(id);
     }
 
@@ -74,4 +98,16 @@ public class UserController {
     public List<User> getCommonFriends(@PathVariable Long id, @PathVariable Long otherId) {
         return userService.getCommonFriends(id, otherId);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(@PathVariable Long id,
+                                           @RequestParam(defaultValue = "10") @Positive @Max(100) int limit) {
+        return userService.getFriendSuggestions(id, limit);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public List<Film> getRecommendations(@PathVariable Long id,
+                                         @RequestParam(defaultValue = "10") @Positive @Max(100) int limit) {
+        return userService.getRecommendations(id, limit);
+    }
+}
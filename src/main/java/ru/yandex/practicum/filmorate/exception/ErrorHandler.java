@@ -7,6 +7,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import ru.yandex.practicum.filmorate.model.Error;
+import ru.yandex.practicum.filmorate.model.SqlBudgetError;
 
 import java.util.NoSuchElementException;
 
@@ -34,6 +35,18 @@ public class ErrorHandler {
         return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Бюджет проверяется только с filmorate.sql.budget.enforce=true (в тестах): запрос выполнил больше
+     * SQL-выражений, чем положено, это ошибка сервера, а тело показывает, сколько их было.
+     */
+    @ExceptionHandler({SqlBudgetExceededException.class})
+    public ResponseEntity<SqlBudgetError> handleSqlBudgetExceededException(SqlBudgetExceededException e) {
+        log.error("Ошибка",e);
+        SqlBudgetError error = new SqlBudgetError(e.getMessage(), e.getRequest(), e.getStatements(),
+                e.getMaxStatements());
+        return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Error> handleGeneralException(Exception e) {
         log.error("Ошибка",e);
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.exception;
+
+import lombok.Getter;
+
+@Getter
+public class SqlBudgetExceededException extends RuntimeException {
+    private final String request;
+
+    private final int statements;
+
+    private final int maxStatements;
+
+    public SqlBudgetExceededException(String request, int statements, int maxStatements) {
+        super("Превышен бюджет SQL-выражений на запрос " + request + ": " + statements + " > " + maxStatements);
+        this.request = request;
+        this.statements = statements;
+        this.maxStatements = maxStatements;
+    }
+}
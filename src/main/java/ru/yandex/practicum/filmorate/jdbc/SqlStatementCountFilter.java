@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Открывает счётчик SQL-выражений на время запроса, отдаёт итог в заголовке {@value #HEADER}
+ * и пишет распределение filmorate.sql.statements по шаблону URI. Заголовок ставится перед первой записью
+ * тела, поэтому для потоковых ответов он показывает выражения, выполненные до начала выдачи.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+    public static final String HEADER = "X-SQL-Statement-Count";
+
+    private final SqlStatementCounter counter;
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        counter.begin(request.getMethod() + " " + request.getRequestURI());
+        int statements;
+        try {
+            chain.doFilter(request, new CountHeaderResponse(response));
+        } finally {
+            statements = counter.end();
+        }
+
+        if (!response.isCommitted()) {
+            response.setHeader(HEADER, String.valueOf(statements));
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("filmorate.sql.statements")
+                .description("SQL-выражений на HTTP-запрос")
+                .tag("method", request.getMethod())
+                .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                .register(meterRegistry)
+                .record(statements);
+        if (statements > counter.getMaxStatements()) {
+            log.warn("Запрос {} {} выполнил {} SQL-выражений при бюджете {}", request.getMethod(),
+                    request.getRequestURI(), statements, counter.getMaxStatements());
+        }
+    }
+
+    private class CountHeaderResponse extends HttpServletResponseWrapper {
+
+        CountHeaderResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+
+        private void writeHeader() {
+            if (!isCommitted()) {
+                setHeader(HEADER, String.valueOf(counter.current()));
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.SqlBudgetExceededException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Счётчик SQL-выражений в рамках одного HTTP-запроса. Считаются выражения, выполненные в потоке запроса
+ * и в задачах, обёрнутых {@link #propagate(Callable)}; вне запроса (планировщик, прогрев индексов)
+ * счётчик не активен.
+ * В режиме enforce выражение сверх бюджета не выполняется, а запрос падает – так N+1 ловится в тестах.
+ */
+@Component
+public class SqlStatementCounter {
+
+    private final ThreadLocal<Scope> scope = new ThreadLocal<>();
+
+    @Value("${filmorate.sql.budget.max-statements:20}")
+    private int maxStatements;
+
+    @Value("${filmorate.sql.budget.enforce:false}")
+    private boolean enforce;
+
+    public void begin(String description) {
+        scope.set(new Scope(description));
+    }
+
+    public int end() {
+        Scope current = scope.get();
+        scope.remove();
+        return current == null ? 0 : current.count.get();
+    }
+
+    public int current() {
+        Scope current = scope.get();
+        return current == null ? 0 : current.count.get();
+    }
+
+    /**
+     * Переносит счётчик текущего запроса в задачу, которая выполнится в другом потоке.
+     */
+    public <T> Callable<T> propagate(Callable<T> task) {
+        Scope captured = scope.get();
+        if (captured == null) {
+            return task;
+        }
+        return () -> {
+            Scope previous = scope.get();
+            scope.set(captured);
+            try {
+                return task.call();
+            } finally {
+                if (previous == null) {
+                    scope.remove();
+                } else {
+                    scope.set(previous);
+                }
+            }
+        };
+    }
+
+    public int getMaxStatements() {
+        return maxStatements;
+    }
+
+    void onStatement() {
+        Scope current = scope.get();
+        if (current == null) {
+            return;
+        }
+        int count = current.count.incrementAndGet();
+        if (enforce && count > maxStatements) {
+            throw new SqlBudgetExceededException(current.description, count, maxStatements);
+        }
+    }
+
+    private static final class Scope {
+        private final String description;
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private Scope(String description) {
+            this.description = description;
+        }
+    }
+}
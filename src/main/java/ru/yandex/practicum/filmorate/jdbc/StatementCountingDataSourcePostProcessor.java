@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Оборачивает DataSource приложения в {@link StatementCountingDataSource}. Hikari-метрики по-прежнему
+ * видят пул: Spring Boot разворачивает DelegatingDataSource до исходного HikariDataSource.
+ */
+@Component
+public class StatementCountingDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<SqlStatementCounter> counter;
+
+    public StatementCountingDataSourcePostProcessor(ObjectProvider<SqlStatementCounter> counter) {
+        this.counter = counter;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+            return new StatementCountingDataSource(dataSource, counter.getObject());
+        }
+        return bean;
+    }
+}
@@ -7,9 +7,7 @@ import ru.yandex.practicum.filmorate.annotations.ValidReleaseDate;
 import ru.yandex.practicum.filmorate.annotations.ValidationGroup;
 
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 @Data
 public class Film {
@@ -41,5 +39,5 @@ public class Film {
     private List<Genre> genres;
 
     @JsonIgnore
-    private Set<Long> likes = new HashSet<>();
+    private LongHashSet likes = new LongHashSet();
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportResult {
+    private int imported;
+
+    private int failed;
+
+    private List<ImportError> errors = new ArrayList<>();
+
+    public void addImported(int count) {
+        imported += count;
+    }
+
+    public void addError(int index, String errorMessage) {
+        failed++;
+        errors.add(new ImportError(index, errorMessage));
+    }
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class LikeBatchResult {
+    private long received;
+
+    private long duplicates;
+
+    private long liked;
+
+    private long unliked;
+
+    private long unchanged;
+
+    private long failed;
+
+    private List<ImportError> errors = new ArrayList<>();
+
+    public void addError(int index, String errorMessage) {
+        failed++;
+        errors.add(new ImportError(index, errorMessage));
+    }
+}
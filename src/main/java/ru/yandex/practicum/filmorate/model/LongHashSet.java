@@ -0,0 +1,213 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+/**
+ * Множество ID без упаковки в Long: открытая адресация с линейным пробированием в массиве long.
+ * Ноль служит меткой пустой ячейки и хранится отдельным флагом. Таблица выделяется при первом добавлении,
+ * так что пустое множество почти не занимает памяти. Не потокобезопасно – синхронизация на стороне вызывающего.
+ */
+public final class LongHashSet {
+    private static final long[] NO_SLOTS = new long[0];
+
+    private static final int MIN_CAPACITY = 4;
+
+    private long[] slots = NO_SLOTS;
+
+    private boolean containsZero;
+
+    private int size;
+
+    public static LongHashSet of(long... values) {
+        LongHashSet set = new LongHashSet();
+        for (long value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        if (slots.length == 0) {
+            return false;
+        }
+
+        int mask = slots.length - 1;
+        for (int i = slot(value, mask); slots[i] != 0; i = (i + 1) & mask) {
+            if (slots[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean add(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        if (slots.length == 0) {
+            slots = new long[MIN_CAPACITY];
+        }
+
+        int mask = slots.length - 1;
+        int i = slot(value, mask);
+        while (slots[i] != 0) {
+            if (slots[i] == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        slots[i] = value;
+        size++;
+
+        if (slotCount() > slots.length * 3 / 4) {
+            resize(slots.length * 2);
+        }
+        return true;
+    }
+
+    public boolean remove(long value) {
+        if (value == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+        if (slots.length == 0) {
+            return false;
+        }
+
+        int mask = slots.length - 1;
+        int i = slot(value, mask);
+        while (slots[i] != value) {
+            if (slots[i] == 0) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+
+        // Сдвигаем следующие элементы цепочки назад, чтобы не оставлять «дыр» и обходиться без надгробий.
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (slots[j] == 0) {
+                break;
+            }
+            int home = slot(slots[j], mask);
+            boolean reachable = i <= j ? (home > i && home <= j) : (home > i || home <= j);
+            if (!reachable) {
+                slots[i] = slots[j];
+                i = j;
+            }
+        }
+        slots[i] = 0;
+        size--;
+        return true;
+    }
+
+    public void forEach(LongConsumer action) {
+        if (containsZero) {
+            action.accept(0);
+        }
+        for (long value : slots) {
+            if (value != 0) {
+                action.accept(value);
+            }
+        }
+    }
+
+    /**
+     * Элементы в порядке возрастания, в новом массиве.
+     */
+    public long[] toArray() {
+        long[] values = new long[size];
+        int index = 0;
+        if (containsZero) {
+            values[index++] = 0;
+        }
+        for (long value : slots) {
+            if (value != 0) {
+                values[index++] = value;
+            }
+        }
+        Arrays.sort(values);
+        return values;
+    }
+
+    public LongStream stream() {
+        return LongStream.of(toArray());
+    }
+
+    private int slotCount() {
+        return containsZero ? size - 1 : size;
+    }
+
+    private void resize(int capacity) {
+        long[] previous = slots;
+        slots = new long[capacity];
+        int mask = capacity - 1;
+        for (long value : previous) {
+            if (value != 0) {
+                int i = slot(value, mask);
+                while (slots[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = value;
+            }
+        }
+    }
+
+    private static int slot(long value, int mask) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LongHashSet other) || other.size != size || other.containsZero != containsZero) {
+            return false;
+        }
+        for (long value : slots) {
+            if (value != 0 && !other.contains(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (long value : slots) {
+            hash += Long.hashCode(value);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
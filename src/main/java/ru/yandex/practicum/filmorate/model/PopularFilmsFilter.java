@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * Фильтр популярных фильмов по жанру и году выхода; пустые поля не ограничивают выборку.
+ */
+public record PopularFilmsFilter(Long genreId, Integer year) {
+
+    public static final PopularFilmsFilter NONE = new PopularFilmsFilter(null, null);
+
+    public boolean isEmpty() {
+        return genreId == null && year == null;
+    }
+
+    public boolean matches(Film film) {
+        if (year != null && film.getReleaseDate().getYear() != year) {
+            return false;
+        }
+        return genreId == null || film.getGenres() != null
+                && film.getGenres().stream().anyMatch(genre -> genreId.equals(genre.getId()));
+    }
+}
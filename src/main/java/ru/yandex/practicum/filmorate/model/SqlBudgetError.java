@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SqlBudgetError {
+    private String errorMessage;
+
+    private String request;
+
+    private int statements;
+
+    private int maxStatements;
+}
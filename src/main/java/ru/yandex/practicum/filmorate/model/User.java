@@ -6,8 +6,6 @@ import lombok.Data;
 import ru.yandex.practicum.filmorate.annotations.ValidationGroup;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
 @Data
 public class User {
@@ -34,5 +32,5 @@ public class User {
     private LocalDate birthday;
 
     @JsonIgnore
-    private Set<Long> friends = new HashSet<>();
+    private LongHashSet friends = new LongHashSet();
 }
\ No newline at end of file
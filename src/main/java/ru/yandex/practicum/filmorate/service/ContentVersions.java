@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.LikeChangeListener;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версии отдаваемых клиентам представлений: карточки фильма, списка популярных и списка друзей юзера.
+ * Сервисы поднимают версию после каждого изменения, контроллеры по ней отвечают 304 на
+ * If-None-Match, не обращаясь к базе. Last-Modified не отдаётся: в If-Modified-Since точность
+ * до секунды, и два изменения в одну секунду были бы неразличимы.
+ * <p>
+ * Версии живут в памяти одного экземпляра приложения. ETag включает время старта, поэтому ответы,
+ * полученные до перезапуска, после него не считаются актуальными. Изменения в обход сервисов
+ * (прямо в базе) не отслеживаются.
+ */
+@Component
+public class ContentVersions implements LikeChangeListener {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Stamp initial = new Stamp(0);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final ConcurrentMap<Long, Stamp> films = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Long, Stamp> friendLists = new ConcurrentHashMap<>();
+
+    private volatile Stamp popularFilms = initial;
+
+    private volatile Stamp userProfiles = initial;
+
+    public Stamp film(Long filmId) {
+        return films.getOrDefault(filmId, initial);
+    }
+
+    public Stamp popularFilms() {
+        return popularFilms;
+    }
+
+    /**
+     * В списке друзей отдаются профили друзей, поэтому он меняется и при изменении состава,
+     * и при обновлении любого профиля.
+     */
+    public Stamp friends(Long userId) {
+        return Stamp.latest(friendLists.getOrDefault(userId, initial), userProfiles);
+    }
+
+    public void filmChanged(Long filmId) {
+        films.put(filmId, next());
+        popularFilms = next();
+    }
+
+    public void userAdded(Long userId) {
+        friendLists.put(userId, next());
+    }
+
+    public void userChanged() {
+        userProfiles = next();
+    }
+
+    public void friendsChanged(Long userId, Long friendId) {
+        friendLists.put(userId, next());
+        friendLists.put(friendId, next());
+    }
+
+    @Override
+    public void likeAdded(Long filmId, Long userId) {
+        popularFilms = next();
+    }
+
+    @Override
+    public void likeRemoved(Long filmId, Long userId) {
+        popularFilms = next();
+    }
+
+    public String eTag(Stamp stamp) {
+        return "\"" + epoch + "-" + stamp.version() + "\"";
+    }
+
+    private Stamp next() {
+        return new Stamp(clock.incrementAndGet());
+    }
+
+    public record Stamp(long version) {
+
+        static Stamp latest(Stamp first, Stamp second) {
+            return first.version >= second.version ? first : second;
+        }
+    }
+}
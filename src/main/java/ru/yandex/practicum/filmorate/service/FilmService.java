@@ -1,26 +1,80 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.annotations.ValidationGroup;
 import ru.yandex.practicum.filmorate.exception.BadRequestException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.LikeBatchResult;
+import ru.yandex.practicum.filmorate.model.LikeEvent;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.PopularFilmsFilter;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmTrendingIndex;
+import ru.yandex.practicum.filmorate.storage.film.LikeChangeListener;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@Timed(value = "filmorate.service", histogram = true)
 public class FilmService {
-    private final FilmStorage filmDbStorage;
+    private static final int DEFAULT_PAGE_SIZE = 100;
 
-    private final UserStorage userDbStorage;
+    private final FilmStorage filmStorage;
+
+    private final UserStorage userStorage;
 
     private final GenreService genreService;
 
+    private final FilmPopularityIndex filmPopularityIndex;
+
+    private final FilmTrendingIndex filmTrendingIndex;
+
+    private final List<LikeChangeListener> likeChangeListeners;
+
+    private final MpaService mpaService;
+
+    private final Validator validator;
+
+    private final LikeWriteBehindBuffer likeWriteBehindBuffer;
+
+    private final ContentVersions contentVersions;
+
+    private final FilmSearchIndex filmSearchIndex;
+
+    private final SingleFlight<FilmLookup, Film> filmLookups = new SingleFlight<>();
+
+    @Value("${filmorate.import.chunk-size:1000}")
+    private int importChunkSize;
+
+    @Value("${filmorate.likes.batch-size:1000}")
+    private int likeBatchSize;
+
     public Film addFilm(Film film) {
         if (film.getGenres() != null) {
             film.getGenres().forEach(genre -> {
@@ -32,41 +86,326 @@ public class FilmService {
             });
         }
         log.info("Добавление фильма – {}", film);
-        return filmDbStorage.addFilm(film);
+        Film added = filmStorage.addFilm(film);
+        contentVersions.filmChanged(added.getId());
+        filmSearchIndex.filmSaved(added);
+        return added;
+    }
+
+    public ImportResult importFilms(Iterator<Film> films) {
+        ImportResult result = new ImportResult();
+        List<Film> chunk = new ArrayList<>(importChunkSize);
+        List<Integer> chunkIndexes = new ArrayList<>(importChunkSize);
+        int index = 0;
+
+        while (true) {
+            Film film;
+            try {
+                if (!films.hasNext()) {
+                    break;
+                }
+                film = films.next();
+            } catch (RuntimeException e) {
+                result.addError(index, "Некорректный JSON: " + e.getMessage());
+                break;
+            }
+
+            String error = validateForImport(film);
+            if (error != null) {
+                result.addError(index, error);
+            } else {
+                chunk.add(film);
+                chunkIndexes.add(index);
+            }
+            index++;
+
+            if (chunk.size() >= importChunkSize) {
+                saveImportChunk(chunk, chunkIndexes, result);
+            }
+        }
+        saveImportChunk(chunk, chunkIndexes, result);
+
+        log.info("Импорт фильмов: добавлено {}, с ошибками {}", result.getImported(), result.getFailed());
+        return result;
+    }
+
+    private String validateForImport(Film film) {
+        Set<ConstraintViolation<Film>> violations = validator.validate(film, ValidationGroup.OnCreate.class);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .collect(Collectors.joining(", "));
+        }
+
+        try {
+            mpaService.checkMpaExist(film.getMpa().getId());
+            if (film.getGenres() != null) {
+                film.getGenres().stream()
+                        .map(Genre::getId)
+                        .forEach(genreService::checkGenreExist);
+            }
+        } catch (NotFoundException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    private void saveImportChunk(List<Film> chunk, List<Integer> chunkIndexes, ImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        try {
+            filmStorage.addFilms(chunk);
+            result.addImported(chunk.size());
+            chunk.forEach(film -> contentVersions.filmChanged(film.getId()));
+            filmSearchIndex.filmsSaved(chunk);
+        } catch (DataAccessException e) {
+            log.warn("Пакет из {} фильмов не сохранён, повторяем построчно", chunk.size(), e);
+            for (int i = 0; i < chunk.size(); i++) {
+                Film film = chunk.get(i);
+                film.setId(null);
+                try {
+                    filmStorage.addFilms(List.of(film));
+                    result.addImported(1);
+                    contentVersions.filmChanged(film.getId());
+                    filmSearchIndex.filmSaved(film);
+                } catch (DataAccessException rowException) {
+                    result.addError(chunkIndexes.get(i), rowException.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+
+        chunk.clear();
+        chunkIndexes.clear();
     }
 
     public Film updateFilm(Film film) {
         log.info("Обновление фильма – {}", film);
-        return filmDbStorage.updateFilm(film);
+        Film updated = filmStorage.updateFilm(film);
+        contentVersions.filmChanged(updated.getId());
+        filmSearchIndex.filmSaved(updated);
+        return updated;
     }
 
     public Collection<Film> getAllFilms() {
         log.info("Получение фильмов");
-        return filmDbStorage.getAllFilms();
+        return filmStorage.getAllFilms();
+    }
+
+    public List<Film> getFilmsPage(Long afterId, Integer limit) {
+        log.info("Получение страницы фильмов после ID {}", afterId);
+        return filmStorage.getFilmsPage(afterId == null ? 0 : afterId, limit == null ? DEFAULT_PAGE_SIZE : limit);
+    }
+
+    public void streamAllFilms(Consumer<Film> consumer) {
+        log.info("Потоковая выгрузка фильмов");
+        filmStorage.streamAllFilms(consumer);
     }
 
+    /**
+     * Одновременные запросы одного фильма (например, трендового) склеиваются в один поход в хранилище.
+     * Склеиваются только запросы с одной версией фильма: контроллер берёт ETag до вызова, и запрос,
+     * пришедший после изменения, не должен получить фильм из загрузки, начатой до него.
+     */
     public Film getFilmById(Long id) {
-        Film film = filmDbStorage.getFilmById(id);
+        FilmLookup lookup = new FilmLookup(id, contentVersions.film(id).version());
+        Film film = filmLookups.execute(lookup, () -> filmStorage.getFilmById(id));
         log.info("Получение фильма – {}", film);
         return film;
     }
 
+    /**
+     * Фильм прямо из хранилища, мимо склейки: вызывающий меняет его перед сохранением,
+     * а склеенный результат общий для всех параллельных запросов.
+     */
+    public Film getFilmForUpdate(Long id) {
+        return filmStorage.getFilmById(id);
+    }
+
+    public SingleFlight<FilmLookup, Film> getFilmLookups() {
+        return filmLookups;
+    }
+
     public void addLike(Long filmId, Long userId) {
-        userDbStorage.checkUserExist(userId);
-        filmDbStorage.checkFilmExist(filmId);
-        filmDbStorage.addLike(filmId, userId);
+        if (likeWriteBehindBuffer.isEnabled()) {
+            checkLikeParticipants(filmId, userId);
+            likeWriteBehindBuffer.add(filmId, userId, LikeOperation.LIKE);
+            // список популярных сразу учитывает буфер, поэтому версия поднимается до его сброса
+            contentVersions.likeAdded(filmId, userId);
+            log.info("Юзер {} поставил лайк фильму {}", userId, filmId);
+            return;
+        }
+
+        try {
+            if (filmStorage.addLike(filmId, userId)) {
+                likeChangeListeners.forEach(listener -> listener.likeAdded(filmId, userId));
+            }
+        } catch (DataIntegrityViolationException e) {
+            checkLikeParticipants(filmId, userId);
+            throw e;
+        }
         log.info("Юзер {} поставил лайк фильму {}", userId, filmId);
     }
 
     public void removeLike(Long filmId, Long userId) {
-        userDbStorage.checkUserExist(userId);
-        filmDbStorage.checkFilmExist(filmId);
-        filmDbStorage.removeLike(filmId, userId);
+        if (likeWriteBehindBuffer.isEnabled()) {
+            checkLikeParticipants(filmId, userId);
+            likeWriteBehindBuffer.add(filmId, userId, LikeOperation.UNLIKE);
+            contentVersions.likeRemoved(filmId, userId);
+            log.info("Юзер {} удалил лайк к фильму {}", userId, filmId);
+            return;
+        }
+
+        if (filmStorage.removeLike(filmId, userId)) {
+            likeChangeListeners.forEach(listener -> listener.likeRemoved(filmId, userId));
+        } else {
+            checkLikeParticipants(filmId, userId);
+        }
         log.info("Юзер {} удалил лайк к фильму {}", userId, filmId);
     }
 
-    public List<Film> getPopularFilms(int count) {
-        log.info("Получаем количество {} популярных фильмов", count);
-        return filmDbStorage.getPopularFilms(count);
+    private void checkLikeParticipants(Long filmId, Long userId) {
+        userStorage.checkUserExist(userId);
+        filmStorage.checkFilmExist(filmId);
+    }
+
+    public LikeBatchResult applyLikeEvents(Iterator<LikeEvent> events) {
+        LikeBatchResult result = new LikeBatchResult();
+        Map<List<Long>, IndexedLikeEvent> batch = new LinkedHashMap<>();
+        int index = 0;
+
+        while (true) {
+            LikeEvent event;
+            try {
+                if (!events.hasNext()) {
+                    break;
+                }
+                event = events.next();
+            } catch (RuntimeException e) {
+                result.addError(index, "Некорректный JSON: " + e.getMessage());
+                break;
+            }
+
+            result.setReceived(result.getReceived() + 1);
+            if (event.getFilmId() == null || event.getUserId() == null || event.getOp() == null) {
+                result.addError(index++, "Не указаны filmId, userId или op.");
+                continue;
+            }
+
+            List<Long> key = List.of(event.getFilmId(), event.getUserId());
+            if (batch.remove(key) != null) {
+                result.setDuplicates(result.getDuplicates() + 1);
+            }
+            batch.put(key, new IndexedLikeEvent(index++, event));
+
+            if (batch.size() >= likeBatchSize) {
+                applyLikeBatch(batch, result);
+            }
+        }
+        applyLikeBatch(batch, result);
+
+        log.info("Пакетная обработка лайков – {}", result);
+        return result;
+    }
+
+    private void applyLikeBatch(Map<List<Long>, IndexedLikeEvent> batch, LikeBatchResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Set<Long> films = filmStorage.getExistingFilmIds(batch.values().stream().map(row -> row.event().getFilmId())
+                .collect(Collectors.toSet()));
+        Set<Long> users = userStorage.getExistingUserIds(batch.values().stream().map(row -> row.event().getUserId())
+                .collect(Collectors.toSet()));
+
+        List<LikeEvent> valid = new ArrayList<>(batch.size());
+        for (IndexedLikeEvent row : batch.values()) {
+            LikeEvent event = row.event();
+            if (!films.contains(event.getFilmId())) {
+                result.addError(row.index(), "Фильм с ID " + event.getFilmId() + " не найден.");
+            } else if (!users.contains(event.getUserId())) {
+                result.addError(row.index(), "Пользователь с ID " + event.getUserId() + " не найден.");
+            } else {
+                valid.add(event);
+            }
+        }
+
+        boolean[] changed = filmStorage.applyLikes(valid);
+        for (int i = 0; i < valid.size(); i++) {
+            LikeEvent event = valid.get(i);
+            if (!changed[i]) {
+                result.setUnchanged(result.getUnchanged() + 1);
+            } else if (event.getOp() == LikeOperation.LIKE) {
+                result.setLiked(result.getLiked() + 1);
+                likeChangeListeners.forEach(listener -> listener.likeAdded(event.getFilmId(), event.getUserId()));
+            } else {
+                result.setUnliked(result.getUnliked() + 1);
+                likeChangeListeners.forEach(listener -> listener.likeRemoved(event.getFilmId(), event.getUserId()));
+            }
+        }
+
+        batch.clear();
+    }
+
+    public List<Film> getPopularFilms(int count, PopularFilmsFilter filter) {
+        log.info("Получаем количество {} популярных фильмов, фильтр {}", count, filter);
+        if (filter.genreId() != null) {
+            genreService.checkGenreExist(filter.genreId());
+        }
+        Map<Long, Integer> pendingLikes = likeWriteBehindBuffer.getPendingDeltas();
+        if (pendingLikes.isEmpty()) {
+            return filmStorage.getPopularFilms(count, filter);
+        }
+        return overlayPendingLikes(count, filter, pendingLikes);
+    }
+
+    /**
+     * Фильмы с наибольшим числом лайков за окно вроде {@code 24h}. Лайки из буфера отложенной записи
+     * попадают в тренды после сброса буфера.
+     */
+    public List<Film> getTrendingFilms(String window, int count) {
+        log.info("Получаем количество {} трендовых фильмов за {}", count, window);
+        return filmStorage.getFilmsByIds(filmTrendingIndex.getTopFilmIds(window, count));
+    }
+
+    public List<Film> searchFilms(String query, int count) {
+        log.info("Поиск {} фильмов по запросу «{}»", count, query);
+        return filmStorage.getFilmsByIds(filmSearchIndex.search(query, count));
+    }
+
+    private List<Film> overlayPendingLikes(int count, PopularFilmsFilter filter, Map<Long, Integer> pendingLikes) {
+        Map<Long, Film> candidates = new LinkedHashMap<>();
+        filmStorage.getPopularFilms(count + pendingLikes.size(), filter)
+                .forEach(film -> candidates.put(film.getId(), film));
+
+        List<Long> missing = pendingLikes.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0 && !candidates.containsKey(entry.getKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+        filmStorage.getFilmsByIds(missing).stream()
+                .filter(filter::matches)
+                .forEach(film -> candidates.put(film.getId(), film));
+
+        Map<Long, Long> likes = candidates.keySet().stream()
+                .collect(Collectors.toMap(Function.identity(),
+                        id -> filmPopularityIndex.getLikes(id) + pendingLikes.getOrDefault(id, 0)));
+
+        return candidates.values().stream()
+                .filter(film -> likes.get(film.getId()) > 0)
+                .sorted(Comparator.comparing((Film film) -> likes.get(film.getId())).reversed()
+                        .thenComparing(Film::getId))
+                .limit(count)
+                .toList();
+    }
+
+    public record FilmLookup(Long filmId, long version) {
+    }
+
+    /**
+     * Событие пакета с номером строки во входном потоке – для отчёта об ошибках.
+     */
+    private record IndexedLikeEvent(int index, LikeEvent event) {
     }
 }
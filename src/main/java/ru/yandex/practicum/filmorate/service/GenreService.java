@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -11,6 +12,7 @@ import java.util.Collection;
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@Timed(value = "filmorate.service", histogram = true)
 public class GenreService {
 
     private final GenreStorage genreDbStorage;
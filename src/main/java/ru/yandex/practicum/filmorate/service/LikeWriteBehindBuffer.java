@@ -0,0 +1,184 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.LikeEvent;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.LikeChangeListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Отложенная запись лайков: операции копятся в памяти (для пары фильм–юзер остаётся последняя)
+ * и пакетом сбрасываются в film_like по размеру буфера, по таймеру и при остановке приложения.
+ * <p>
+ * Одновременно идёт не больше одного сброса. Поток запроса, заполнивший буфер, сбрасывает его,
+ * только если никто другой этого не делает, иначе сразу возвращается: новые операции уйдут
+ * следующим сбросом, а запрос не ждёт чужой записи в базу.
+ */
+@Slf4j
+@Component
+public class LikeWriteBehindBuffer {
+
+    private final FilmStorage filmStorage;
+
+    private final List<LikeChangeListener> likeChangeListeners;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Lock flushLock = new ReentrantLock();
+
+    private volatile Map<List<Long>, LikeOperation> pending = new ConcurrentHashMap<>();
+
+    private volatile Map<List<Long>, LikeOperation> flushing = Map.of();
+
+    @Value("${filmorate.likes.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${filmorate.likes.write-behind.flush-size:1000}")
+    private int flushSize;
+
+    public LikeWriteBehindBuffer(FilmStorage filmStorage, List<LikeChangeListener> likeChangeListeners) {
+        this.filmStorage = filmStorage;
+        this.likeChangeListeners = likeChangeListeners;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void add(Long filmId, Long userId, LikeOperation op) {
+        lock.readLock().lock();
+        try {
+            pending.put(List.of(filmId, userId), op);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (pending.size() >= flushSize && flushLock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.likes.write-behind.flush-interval:PT1S}")
+    public void scheduledFlush() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (enabled) {
+            log.info("Сброс буфера лайков перед остановкой");
+            flush();
+        }
+    }
+
+    /**
+     * Сбрасывает буфер, дождавшись окончания уже идущего сброса.
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            return drain();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Под блокировкой буфера только подменяется карта операций, запись в базу идёт без неё.
+     * Вызывается под flushLock: пока пакет пишется, он виден в {@code flushing}.
+     */
+    private int drain() {
+        Map<List<Long>, LikeOperation> drained;
+        lock.writeLock().lock();
+        try {
+            drained = pending;
+            if (drained.isEmpty()) {
+                return 0;
+            }
+            pending = new ConcurrentHashMap<>();
+            flushing = drained;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<LikeEvent> events = drained.entrySet().stream()
+                .map(entry -> new LikeEvent(entry.getKey().get(0), entry.getKey().get(1), entry.getValue()))
+                .toList();
+
+        boolean[] changed;
+        try {
+            changed = filmStorage.applyLikes(events);
+        } catch (RuntimeException e) {
+            log.error("Не удалось сбросить {} лайков, вернём их в буфер", events.size(), e);
+            lock.writeLock().lock();
+            try {
+                drained.forEach(pending::putIfAbsent);
+                flushing = Map.of();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return 0;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < events.size(); i++) {
+                if (!changed[i]) {
+                    continue;
+                }
+                LikeEvent event = events.get(i);
+                for (LikeChangeListener listener : likeChangeListeners) {
+                    if (event.getOp() == LikeOperation.LIKE) {
+                        listener.likeAdded(event.getFilmId(), event.getUserId());
+                    } else {
+                        listener.likeRemoved(event.getFilmId(), event.getUserId());
+                    }
+                }
+            }
+            flushing = Map.of();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.debug("Сброшено {} лайков из буфера", events.size());
+        return events.size();
+    }
+
+    /**
+     * Изменение числа лайков по фильмам, ещё не записанное в базу. Повторный лайк уже лайкнутого
+     * фильма здесь тоже считается за +1, поэтому до сброса буфера оценка может быть чуть завышена.
+     */
+    public Map<Long, Integer> getPendingDeltas() {
+        Map<List<Long>, LikeOperation> operations = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            operations.putAll(flushing);
+            operations.putAll(pending);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Long, Integer> deltas = new HashMap<>();
+        operations.forEach((key, op) -> deltas.merge(key.get(0), op == LikeOperation.LIKE ? 1 : -1, Integer::sum));
+        return deltas;
+    }
+}
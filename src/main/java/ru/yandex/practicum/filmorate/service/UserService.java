@@ -1,63 +1,117 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmLikeMatrix;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@Timed(value = "filmorate.service", histogram = true)
 public class UserService {
-    private final UserStorage userDbStorage;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    private final UserStorage userStorage;
+
+    private final FilmStorage filmStorage;
+
+    private final FilmLikeMatrix filmLikeMatrix;
+
+    private final ContentVersions contentVersions;
 
     public User addUser(User user) {
         log.info("Добавление юзера – {}", user);
-        return userDbStorage.addUser(user);
+        User added = userStorage.addUser(user);
+        contentVersions.userAdded(added.getId());
+        return added;
     }
 
     public User updateUser(User user) {
         log.info("Обновление юзера – {}", user);
-        return userDbStorage.updateUser(user);
+        User updated = userStorage.updateUser(user);
+        contentVersions.userChanged();
+        return updated;
     }
 
     public Collection<User> getAllUsers() {
         log.info("Получение юзеров");
-        return userDbStorage.getAllUsers();
+        return userStorage.getAllUsers();
+    }
+
+    public List<User> getUsersPage(Long afterId, Integer limit) {
+        log.info("Получение страницы юзеров после ID {}", afterId);
+        return userStorage.getUsersPage(afterId == null ? 0 : afterId, limit == null ? DEFAULT_PAGE_SIZE : limit);
+    }
+
+    public void streamAllUsers(Consumer<User> consumer) {
+        log.info("Потоковая выгрузка юзеров");
+        userStorage.streamAllUsers(consumer);
     }
 
     public User getUserById(Long id) {
-        User user = userDbStorage.getUserById(id);
+        User user = userStorage.getUserById(id);
         log.info("Получение юзера – {}", user);
         return user;
     }
 
     public void addFriend(Long userId, Long friendId) {
-        userDbStorage.checkUserExist(userId);
-        userDbStorage.checkUserExist(friendId);
-        userDbStorage.addFriend(userId, friendId);
+        try {
+            userStorage.addFriend(userId, friendId);
+        } catch (DataIntegrityViolationException e) {
+            checkFriendshipParticipants(userId, friendId);
+            throw e;
+        }
+        contentVersions.friendsChanged(userId, friendId);
         log.info("Юзер {} и юзер {} теперь друзья", userId, friendId);
     }
 
     public void removeFriend(Long userId, Long friendId) {
-        userDbStorage.checkUserExist(userId);
-        userDbStorage.checkUserExist(friendId);
-        userDbStorage.removeFriend(userId, friendId);
+        if (!userStorage.removeFriend(userId, friendId)) {
+            checkFriendshipParticipants(userId, friendId);
+        }
+        contentVersions.friendsChanged(userId, friendId);
         log.info("Юзер {} и юзер {} больше не друзья", userId, friendId);
     }
 
     public List<User> getFriends(Long userId) {
         log.info("Получаем друзей юзера {}", userId);
-        userDbStorage.checkUserExist(userId);
-        return userDbStorage.getFriends(userId);
+        List<User> friends = userStorage.getFriends(userId);
+        if (friends.isEmpty()) {
+            userStorage.checkUserExist(userId);
+        }
+        return friends;
+    }
+
+    private void checkFriendshipParticipants(Long userId, Long friendId) {
+        userStorage.checkUserExist(userId);
+        userStorage.checkUserExist(friendId);
     }
 
     public List<User> getCommonFriends(Long userId, Long otherUserId) {
         log.info("Получаем общих друзей юзера {} и другого юзера {}", userId, otherUserId);
-        return userDbStorage.getCommonFriends(userId, otherUserId);
+        return userStorage.getCommonFriends(userId, otherUserId);
+    }
+
+    public List<User> getFriendSuggestions(Long userId, int limit) {
+        log.info("Получаем рекомендации друзей для юзера {}", userId);
+        userStorage.checkUserExist(userId);
+        return userStorage.getFriendSuggestions(userId, limit);
+    }
+
+    public List<Film> getRecommendations(Long userId, int limit) {
+        log.info("Получаем рекомендации фильмов для юзера {}", userId);
+        userStorage.checkUserExist(userId);
+        return filmStorage.getFilmsByIds(filmLikeMatrix.getRecommendedFilmIds(userId, limit));
     }
 }
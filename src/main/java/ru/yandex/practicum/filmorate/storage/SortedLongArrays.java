@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Arrays;
+
+/**
+ * Операции над отсортированными массивами ID, которые используют индексы в памяти.
+ * Массивы не меняются на месте: вставка и удаление возвращают новую копию.
+ */
+public final class SortedLongArrays {
+
+    public static final long[] EMPTY = new long[0];
+
+    private SortedLongArrays() {
+    }
+
+    public static boolean contains(long[] array, long value) {
+        return Arrays.binarySearch(array, value) >= 0;
+    }
+
+    public static long[] with(long[] array, long value) {
+        int position = Arrays.binarySearch(array, value);
+        if (position >= 0) {
+            return array;
+        }
+        int insertAt = -position - 1;
+        long[] updated = new long[array.length + 1];
+        System.arraycopy(array, 0, updated, 0, insertAt);
+        updated[insertAt] = value;
+        System.arraycopy(array, insertAt, updated, insertAt + 1, array.length - insertAt);
+        return updated;
+    }
+
+    public static long[] without(long[] array, long value) {
+        int position = Arrays.binarySearch(array, value);
+        if (position < 0) {
+            return array;
+        }
+        if (array.length == 1) {
+            return EMPTY;
+        }
+        long[] updated = new long[array.length - 1];
+        System.arraycopy(array, 0, updated, 0, position);
+        System.arraycopy(array, position + 1, updated, position, array.length - position - 1);
+        return updated;
+    }
+
+    public static long[] intersection(long[] first, long[] second) {
+        long[] common = new long[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] == second[j]) {
+                common[size++] = first[i];
+                i++;
+                j++;
+            } else if (first[i] < second[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(common, size);
+    }
+
+    public static long[] union(long[] first, long[] second) {
+        long[] merged = new long[first.length + second.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length || j < second.length) {
+            long next;
+            if (j == second.length || i < first.length && first[i] < second[j]) {
+                next = first[i++];
+            } else if (i == first.length || second[j] < first[i]) {
+                next = second[j++];
+            } else {
+                next = first[i++];
+                j++;
+            }
+            merged[size++] = next;
+        }
+        return size == merged.length ? merged : Arrays.copyOf(merged, size);
+    }
+
+    public static int intersectionSize(long[] first, long[] second) {
+        if (first.length == 0 || second.length == 0
+                || first[first.length - 1] < second[0] || second[second.length - 1] < first[0]) {
+            return 0;
+        }
+
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] == second[j]) {
+                size++;
+                i++;
+                j++;
+            } else if (first[i] < second[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return size;
+    }
+}
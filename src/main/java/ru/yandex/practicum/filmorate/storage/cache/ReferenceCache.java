@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Кэш маленьких справочников (жанры, рейтинги MPA). Таблица целиком держится в памяти, промах по ID
+ * отвечается из неё же как отсутствие строки, без похода в базу. Строки, добавленные в обход приложения,
+ * появятся после очередного {@link #invalidate()} из {@link ReferenceCacheRefreshJob}
+ * (раз в {@code filmorate.reference.refresh-interval}) или перезапуска.
+ */
+public class ReferenceCache<T> {
+
+    private final Supplier<List<T>> loader;
+
+    private final Function<T, Long> idExtractor;
+
+    private final UnaryOperator<T> copier;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final Lock reloadLock = new ReentrantLock();
+
+    private volatile Map<Long, T> entries = Collections.emptyMap();
+
+    public ReferenceCache(Supplier<List<T>> loader, Function<T, Long> idExtractor, UnaryOperator<T> copier) {
+        this.loader = loader;
+        this.idExtractor = idExtractor;
+        this.copier = copier;
+    }
+
+    /**
+     * Перечитывает справочник. Чтение идёт по прежней копии, пока новая не загружена; одновременные
+     * перезагрузки выполняются по очереди. ReentrantLock, а не synchronized, чтобы виртуальный поток
+     * не занимал поток-носитель на время запроса к базе.
+     */
+    public void invalidate() {
+        reloadLock.lock();
+        try {
+            Map<Long, T> loaded = new LinkedHashMap<>();
+            loader.get().forEach(entry -> loaded.put(idExtractor.apply(entry), entry));
+            entries = Collections.unmodifiableMap(loaded);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    public Optional<T> get(Long id) {
+        T entry = entries.get(id);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(copier.apply(entry));
+    }
+
+    public boolean contains(Long id) {
+        return get(id).isPresent();
+    }
+
+    public Collection<T> getAll() {
+        hits.incrementAndGet();
+        return entries.values().stream().map(copier).toList();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+}
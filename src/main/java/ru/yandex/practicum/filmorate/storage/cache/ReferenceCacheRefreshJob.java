@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+
+@Component
+@RequiredArgsConstructor
+public class ReferenceCacheRefreshJob {
+
+    private final GenreDbStorage genreDbStorage;
+
+    private final MpaDbStorage mpaDbStorage;
+
+    @Scheduled(initialDelayString = "${filmorate.reference.refresh-interval:PT1H}",
+            fixedDelayString = "${filmorate.reference.refresh-interval:PT1H}")
+    public void refresh() {
+        genreDbStorage.invalidateCache();
+        mpaDbStorage.invalidateCache();
+    }
+}
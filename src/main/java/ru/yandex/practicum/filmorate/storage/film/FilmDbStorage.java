@@ -1,36 +1,65 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.BadRequestException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeEvent;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.PopularFilmsFilter;
 import ru.yandex.practicum.filmorate.storage.mappers.FilmMapper;
-import ru.yandex.practicum.filmorate.storage.mappers.GenreMapper;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
+@Profile("!memory")
 @RequiredArgsConstructor
+@Timed(value = "filmorate.storage", histogram = true)
 public class FilmDbStorage implements FilmStorage {
 
+    private static final int GENRE_BATCH_SIZE = 500;
+
     private final JdbcTemplate jdbcTemplate;
 
+    private final FilmPopularityIndex filmPopularityIndex;
+
+    private final MpaStorage mpaStorage;
+
+    private final FilmDetailsAssembler filmDetailsAssembler;
+
+    @Value("${filmorate.popular-films.source:sql}")
+    private String popularFilmsSource;
+
     @Override
     public Film addFilm(Film film) {
-        String checkMpaSql = "SELECT COUNT(*) FROM mpa_rating WHERE rating_id = ?";
-        Integer mpaExists = jdbcTemplate.queryForObject(checkMpaSql, Integer.class, film.getMpa().getId());
-
-        if (mpaExists == null || mpaExists == 0) {
+        try {
+            mpaStorage.checkMpaExist(film.getMpa().getId());
+        } catch (NotFoundException e) {
             throw new BadRequestException("MPA рейтинг с ID " + film.getMpa().getId() + " не существует.");
         }
 
@@ -51,15 +80,63 @@ public class FilmDbStorage implements FilmStorage {
         film.setId(keyHolder.getKey().longValue());
 
         saveFilmGenres(film);
+        filmPopularityIndex.filmSaved(film);
 
         return film;
     }
 
     @Override
-    public Film updateFilm(Film film) {
-        checkFilmExist(film.getId());
+    @Transactional
+    public List<Film> addFilms(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+
+        String sql = "INSERT INTO film (name, description, release_date, duration, rating_id) VALUES (?, ?, ?, ?, ?)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(sql, new String[]{"film_id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Film film = films.get(i);
+                        ps.setString(1, film.getName());
+                        ps.setString(2, film.getDescription());
+                        ps.setDate(3, Date.valueOf(film.getReleaseDate()));
+                        ps.setInt(4, film.getDuration());
+                        ps.setInt(5, film.getMpa().getId().intValue());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < films.size(); i++) {
+            Number key = (Number) keys.get(i).values().iterator().next();
+            films.get(i).setId(key.longValue());
+        }
+
+        List<Object[]> genreRows = films.stream()
+                .filter(film -> film.getGenres() != null)
+                .flatMap(film -> film.getGenres().stream()
+                        .map(Genre::getId)
+                        .distinct()
+                        .map(genreId -> new Object[]{film.getId(), genreId}))
+                .toList();
+        if (!genreRows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)", genreRows);
+        }
+        films.forEach(filmPopularityIndex::filmSaved);
 
-        jdbcTemplate.update("UPDATE film SET name = ?, description = ?, release_date = ?, duration = ?, "
+        return films;
+    }
+
+    @Override
+    public Film updateFilm(Film film) {
+        int updated = jdbcTemplate.update("UPDATE film SET name = ?, description = ?, release_date = ?, duration = ?, "
                         + "rating_id = ? WHERE film_id = ?",
                 film.getName(),
                 film.getDescription(),
@@ -68,10 +145,15 @@ public class FilmDbStorage implements FilmStorage {
                 film.getMpa().getId(),
                 film.getId());
 
+        if (updated == 0) {
+            throw new NotFoundException("Фильм с ID " + film.getId() + " не найден.");
+        }
+
         jdbcTemplate.update("DELETE FROM film_genre WHERE film_id = ?",
                 film.getId());
 
         saveFilmGenres(film);
+        filmPopularityIndex.filmSaved(film);
 
         return film;
     }
@@ -89,34 +171,70 @@ public class FilmDbStorage implements FilmStorage {
     @Override
     public Collection<Film> getAllFilms() {
         String sql = "SELECT * FROM film JOIN mpa_rating ON film.rating_id = mpa_rating.rating_id";
-        List<Film> filmList = jdbcTemplate.query(sql, new FilmMapper());
-
-        Map<Long, List<Genre>> genresMap = getGenresForFilms();
-        filmList.forEach(film -> film.setGenres(genresMap.getOrDefault(film.getId(), List.of())));
-
-        return filmList;
+        return hydrateGenres(jdbcTemplate.query(sql, new FilmMapper()));
     }
 
-    private Map<Long, List<Genre>> getGenresForFilms() {
-        String sqlGenre = "SELECT film_id, genre.genre_id, genre.name FROM film_genre JOIN genre ON genre.genre_id = film_genre.genre_id";
-        return jdbcTemplate.query(sqlGenre, (rs, rowNum) -> new Genre(rs.getLong("genre_id"),
-                        rs.getString("name")))
-                .stream()
-                .collect(Collectors.groupingBy(Genre::getId));
+    @Override
+    public List<Film> getFilmsPage(long afterId, int limit) {
+        String sql = "SELECT * FROM film JOIN mpa_rating ON film.rating_id = mpa_rating.rating_id "
+                + "WHERE film.film_id > ? ORDER BY film.film_id LIMIT ?";
+        return hydrateGenres(jdbcTemplate.query(sql, new FilmMapper(), afterId, limit));
     }
 
     @Override
-    public Film getFilmById(Long id) {
-        checkFilmExist(id);
-        String sqlFilm = "SELECT * FROM film JOIN mpa_rating ON film.rating_id = mpa_rating.rating_id WHERE film_id = ?";
-        String sqlGenre = "SELECT * FROM film_genre JOIN genre ON genre.genre_id = film_genre.genre_id WHERE film_id = ?";
+    public void streamAllFilms(Consumer<Film> consumer) {
+        String sql = "SELECT film.*, mpa_rating.*, genre.genre_id AS film_genre_id, genre.name AS film_genre_name "
+                + "FROM film JOIN mpa_rating ON film.rating_id = mpa_rating.rating_id "
+                + "LEFT JOIN film_genre ON film_genre.film_id = film.film_id "
+                + "LEFT JOIN genre ON genre.genre_id = film_genre.genre_id "
+                + "ORDER BY film.film_id, genre.genre_id";
+        FilmMapper mapper = new FilmMapper();
+        Film[] current = new Film[1];
+
+        jdbcTemplate.query(sql, rs -> {
+            long filmId = rs.getLong("film_id");
+            if (current[0] == null || current[0].getId() != filmId) {
+                if (current[0] != null) {
+                    consumer.accept(current[0]);
+                }
+                current[0] = mapper.mapRow(rs, rs.getRow());
+                current[0].setGenres(new ArrayList<>());
+            }
+            long genreId = rs.getLong("film_genre_id");
+            if (!rs.wasNull()) {
+                current[0].getGenres().add(new Genre(genreId, rs.getString("film_genre_name")));
+            }
+        });
 
-        Film film = jdbcTemplate.queryForObject(sqlFilm, new FilmMapper(), id);
+        if (current[0] != null) {
+            consumer.accept(current[0]);
+        }
+    }
 
-        List<Genre> genres = jdbcTemplate.query(sqlGenre, new GenreMapper(), id);
-        film.setGenres(genres);
+    private List<Film> hydrateGenres(List<Film> films) {
+        Map<Long, List<Genre>> genresMap = new HashMap<>();
+        List<Long> filmIds = films.stream().map(Film::getId).toList();
 
-        return film;
+        for (int from = 0; from < filmIds.size(); from += GENRE_BATCH_SIZE) {
+            List<Long> batch = filmIds.subList(from, Math.min(from + GENRE_BATCH_SIZE, filmIds.size()));
+            String placeholders = String.join(", ", Collections.nCopies(batch.size(), "?"));
+            String sql = "SELECT film_genre.film_id, genre.genre_id, genre.name FROM film_genre "
+                    + "JOIN genre ON genre.genre_id = film_genre.genre_id "
+                    + "WHERE film_genre.film_id IN (" + placeholders + ") "
+                    + "ORDER BY film_genre.film_id, genre.genre_id";
+            jdbcTemplate.query(sql, rs -> {
+                genresMap.computeIfAbsent(rs.getLong("film_id"), filmId -> new ArrayList<>())
+                        .add(new Genre(rs.getLong("genre_id"), rs.getString("name")));
+            }, batch.toArray());
+        }
+
+        films.forEach(film -> film.setGenres(genresMap.getOrDefault(film.getId(), List.of())));
+        return films;
+    }
+
+    @Override
+    public Film getFilmById(Long id) {
+        return filmDetailsAssembler.assemble(id);
     }
 
     @Override
@@ -128,29 +246,131 @@ public class FilmDbStorage implements FilmStorage {
     }
 
     @Override
-    public void addLike(Long filmId, Long userId) {
-        String sql = "INSERT INTO film_like (film_id, user_id) VALUES (?, ?)";
-        jdbcTemplate.update(sql, filmId, userId);
+    public Set<Long> getExistingFilmIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        String sql = "SELECT film_id FROM film WHERE film_id IN (" + placeholders + ")";
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Long.class, ids.toArray()));
     }
 
     @Override
-    public void removeLike(Long filmId, Long userId) {
+    @Transactional
+    public boolean addLike(Long filmId, Long userId) {
+        String sql = "INSERT INTO film_like (film_id, user_id) SELECT ?, ? "
+                + "WHERE NOT EXISTS (SELECT 1 FROM film_like WHERE film_id = ? AND user_id = ?)";
+        if (jdbcTemplate.update(sql, filmId, userId, filmId, userId) == 0) {
+            return false;
+        }
+        jdbcTemplate.update("UPDATE film SET like_count = like_count + 1 WHERE film_id = ?", filmId);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public boolean removeLike(Long filmId, Long userId) {
         String sql = "DELETE FROM film_like WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, filmId, userId);
+        if (jdbcTemplate.update(sql, filmId, userId) == 0) {
+            return false;
+        }
+        jdbcTemplate.update("UPDATE film SET like_count = like_count - 1 WHERE film_id = ?", filmId);
+        return true;
     }
 
     @Override
-    public List<Film> getPopularFilms(int count) {
-        String sql = "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.rating_id, " +
-                "mpa.rating_id AS mpa_rating_id, mpa.name AS mpa_rating_name, " +
-                "COUNT(fl.user_id) AS like_count " +
-                "FROM film f " +
-                "LEFT JOIN film_like fl ON f.film_id = fl.film_id " +
-                "JOIN mpa_rating mpa ON f.rating_id = mpa.rating_id " +
-                "GROUP BY f.film_id " +
-                "HAVING like_count > 0 " +
-                "ORDER BY like_count DESC " +
-                "LIMIT ?";
-        return jdbcTemplate.query(sql, new FilmMapper(), count);
+    @Transactional
+    public boolean[] applyLikes(List<LikeEvent> events) {
+        List<Object[]> likeRows = new ArrayList<>();
+        List<Object[]> unlikeRows = new ArrayList<>();
+        for (LikeEvent event : events) {
+            if (event.getOp() == LikeOperation.LIKE) {
+                likeRows.add(new Object[]{event.getFilmId(), event.getUserId(), event.getFilmId(), event.getUserId()});
+            } else {
+                unlikeRows.add(new Object[]{event.getFilmId(), event.getUserId()});
+            }
+        }
+
+        int[] liked = jdbcTemplate.batchUpdate("INSERT INTO film_like (film_id, user_id) SELECT ?, ? "
+                + "WHERE NOT EXISTS (SELECT 1 FROM film_like WHERE film_id = ? AND user_id = ?)", likeRows);
+        int[] unliked = jdbcTemplate.batchUpdate("DELETE FROM film_like WHERE film_id = ? AND user_id = ?",
+                unlikeRows);
+
+        boolean[] changed = new boolean[events.size()];
+        Map<Long, Integer> deltas = new HashMap<>();
+        int likeIndex = 0;
+        int unlikeIndex = 0;
+        for (int i = 0; i < events.size(); i++) {
+            LikeEvent event = events.get(i);
+            if (event.getOp() == LikeOperation.LIKE) {
+                changed[i] = liked[likeIndex++] > 0;
+                if (changed[i]) {
+                    deltas.merge(event.getFilmId(), 1, Integer::sum);
+                }
+            } else {
+                changed[i] = unliked[unlikeIndex++] > 0;
+                if (changed[i]) {
+                    deltas.merge(event.getFilmId(), -1, Integer::sum);
+                }
+            }
+        }
+
+        List<Object[]> countRows = deltas.entrySet().stream()
+                .filter(entry -> entry.getValue() != 0)
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .toList();
+        jdbcTemplate.batchUpdate("UPDATE film SET like_count = like_count + ? WHERE film_id = ?", countRows);
+
+        return changed;
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count, PopularFilmsFilter filter) {
+        if ("index".equals(popularFilmsSource)) {
+            return getFilmsByIds(filmPopularityIndex.getTopFilmIds(count, filter));
+        }
+
+        // жанр идёт через индекс film_genre (genre_id, film_id), год – через (release_year, like_count)
+        StringBuilder sql = new StringBuilder("SELECT film.*, mpa_rating.* FROM film "
+                + "JOIN mpa_rating ON film.rating_id = mpa_rating.rating_id ");
+        List<Object> params = new ArrayList<>();
+        if (filter.genreId() != null) {
+            sql.append("JOIN film_genre ON film_genre.film_id = film.film_id AND film_genre.genre_id = ? ");
+            params.add(filter.genreId());
+        }
+        sql.append("WHERE film.like_count > 0 ");
+        if (filter.year() != null) {
+            sql.append("AND film.release_year = ? ");
+            params.add(filter.year());
+        }
+        sql.append("ORDER BY film.like_count DESC, film.film_id LIMIT ?");
+        params.add(count);
+        return hydrateGenres(jdbcTemplate.query(sql.toString(), new FilmMapper(), params.toArray()));
+    }
+
+    public int repairLikeCounts() {
+        String sql = "UPDATE film SET like_count = " +
+                "(SELECT COUNT(*) FROM film_like WHERE film_like.film_id = film.film_id) " +
+                "WHERE like_count <> (SELECT COUNT(*) FROM film_like WHERE film_like.film_id = film.film_id)";
+        return jdbcTemplate.update(sql);
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        String sql = "SELECT * FROM film JOIN mpa_rating ON film.rating_id = mpa_rating.rating_id "
+                + "WHERE film_id IN (" + placeholders + ")";
+        Map<Long, Film> films = jdbcTemplate.query(sql, new FilmMapper(), ids.toArray())
+                .stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+
+        return hydrateGenres(ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .toList());
     }
 }
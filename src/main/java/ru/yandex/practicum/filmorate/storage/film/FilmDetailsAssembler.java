@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.jdbc.SqlStatementCounter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.mappers.FilmMapper;
+import ru.yandex.practicum.filmorate.storage.mappers.GenreMapper;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Собирает карточку фильма из двух независимых запросов: фильм с MPA и его жанры.
+ * Жанры читаются в виртуальном потоке параллельно с основным запросом, так что задержка
+ * определяется самым медленным запросом, а не их суммой. Отдельной проверки существования нет –
+ * пустой результат основного запроса и есть 404.
+ * <p>
+ * Параллельная сборка держит два соединения из пула на запрос и выигрывает только при заметном
+ * сетевом round-trip до базы; для встроенной H2 она медленнее, поэтому включается явно
+ * через {@code filmorate.film-details.parallel=true}.
+ */
+@Component
+@Profile("!memory")
+@RequiredArgsConstructor
+public class FilmDetailsAssembler {
+
+    private static final String SQL_FILM =
+            "SELECT * FROM film JOIN mpa_rating ON film.rating_id = mpa_rating.rating_id WHERE film_id = ?";
+
+    private static final String SQL_GENRE =
+            "SELECT * FROM film_genre JOIN genre ON genre.genre_id = film_genre.genre_id WHERE film_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final SqlStatementCounter sqlStatementCounter;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${filmorate.film-details.parallel:false}")
+    private boolean parallel;
+
+    public Film assemble(Long id) {
+        if (!parallel) {
+            Film film = findFilm(id);
+            film.setGenres(findGenres(id));
+            return film;
+        }
+
+        Future<List<Genre>> genres = executor.submit(sqlStatementCounter.propagate(() -> findGenres(id)));
+        Film film;
+        try {
+            film = findFilm(id);
+        } catch (RuntimeException e) {
+            // дожидаемся жанров, чтобы задача не пережила запрос и не держала соединение
+            awaitQuietly(genres);
+            throw e;
+        }
+        film.setGenres(await(genres));
+        return film;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.close();
+    }
+
+    private Film findFilm(Long id) {
+        return jdbcTemplate.query(SQL_FILM, new FilmMapper(), id).stream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Фильм с ID " + id + " не найден."));
+    }
+
+    private List<Genre> findGenres(Long id) {
+        return jdbcTemplate.query(SQL_GENRE, new GenreMapper(), id);
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Сборка фильма прервана", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void awaitQuietly(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+        } catch (ExecutionException ignored) {
+            // основная ошибка важнее
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.SortedLongArrays;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Матрица лайков в памяти: для каждого юзера отсортированный массив ID лайкнутых фильмов.
+ * Похожие юзеры ищутся параллельным перебором (fork-join) по числу общих лайков,
+ * рекомендуются фильмы, которые они лайкнули, а сам юзер ещё нет.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmLikeMatrix implements LikeChangeListener {
+
+    private static final Comparator<Map.Entry<Long, Long>> SCORE_ORDER =
+            Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    private static final Comparator<Neighbour> NEIGHBOUR_ORDER =
+            Comparator.comparingInt(Neighbour::overlap).reversed().thenComparingLong(Neighbour::userId);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, long[]> userFilms = new ConcurrentHashMap<>();
+
+    @Value("${filmorate.recommendations.neighbours:10}")
+    private int neighbours;
+
+    @PostConstruct
+    public synchronized void rebuild() {
+        Map<Long, List<Long>> loaded = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, film_id FROM film_like", rs -> {
+            loaded.computeIfAbsent(rs.getLong("user_id"), id -> new ArrayList<>()).add(rs.getLong("film_id"));
+        });
+
+        userFilms.clear();
+        loaded.forEach((userId, ids) -> userFilms.put(userId, ids.stream().mapToLong(Long::longValue).sorted().toArray()));
+        log.info("Матрица лайков построена, юзеров с лайками – {}", loaded.size());
+    }
+
+    @Override
+    public synchronized void likeAdded(Long filmId, Long userId) {
+        userFilms.put(userId, SortedLongArrays.with(getFilmIds(userId), filmId));
+    }
+
+    @Override
+    public synchronized void likeRemoved(Long filmId, Long userId) {
+        long[] updated = SortedLongArrays.without(getFilmIds(userId), filmId);
+        if (updated.length == 0) {
+            userFilms.remove(userId);
+        } else {
+            userFilms.put(userId, updated);
+        }
+    }
+
+    public long[] getFilmIds(long userId) {
+        return userFilms.getOrDefault(userId, SortedLongArrays.EMPTY);
+    }
+
+    /**
+     * Фильмы для юзера: берутся соседи с наибольшим числом общих лайков, каждый их фильм
+     * получает сумму пересечений лайкнувших его соседей. При равном счёте выше фильм с меньшим ID.
+     */
+    public List<Long> getRecommendedFilmIds(long userId, int limit) {
+        long[] liked = getFilmIds(userId);
+        if (liked.length == 0) {
+            return List.of();
+        }
+
+        List<Neighbour> nearest = userFilms.entrySet().parallelStream()
+                .filter(entry -> entry.getKey() != userId)
+                .map(entry -> new Neighbour(entry.getKey(), entry.getValue(),
+                        SortedLongArrays.intersectionSize(liked, entry.getValue())))
+                .filter(neighbour -> neighbour.overlap() > 0 && neighbour.filmIds().length > neighbour.overlap())
+                .sorted(NEIGHBOUR_ORDER)
+                .limit(neighbours)
+                .toList();
+
+        Map<Long, Long> scores = new HashMap<>();
+        for (Neighbour neighbour : nearest) {
+            for (long filmId : neighbour.filmIds()) {
+                if (!SortedLongArrays.contains(liked, filmId)) {
+                    scores.merge(filmId, (long) neighbour.overlap(), Long::sum);
+                }
+            }
+        }
+
+        // в куче только limit лучших, её вершина – худший из них
+        PriorityQueue<Map.Entry<Long, Long>> top = new PriorityQueue<>(SCORE_ORDER.reversed());
+        for (Map.Entry<Long, Long> entry : scores.entrySet()) {
+            top.offer(entry);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        return top.stream()
+                .sorted(SCORE_ORDER)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private record Neighbour(long userId, long[] filmIds, int overlap) {
+    }
+}
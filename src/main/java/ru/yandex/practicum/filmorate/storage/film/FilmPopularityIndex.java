@@ -0,0 +1,245 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.PopularFilmsFilter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.LongPredicate;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Таблица лидеров по лайкам: счётчики хранятся в памяти и обновляются при каждом лайке,
+ * поэтому топ-K отдаётся обходом первых K элементов отсортированного множества без запроса к film_like.
+ * Кроме общей таблицы есть отдельные по каждому жанру и году выхода; жанры и год фильма
+ * хранилище сообщает через {@link #filmSaved(Film)}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmPopularityIndex implements LikeChangeListener {
+
+    private static final Comparator<Entry> BY_LIKES_DESC = Comparator.comparingLong(Entry::likes).reversed()
+            .thenComparingLong(Entry::filmId);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, Long> likeCounts = new HashMap<>();
+
+    private final TreeSet<Entry> leaderboard = new TreeSet<>(BY_LIKES_DESC);
+
+    private final Map<Long, Attributes> attributes = new HashMap<>();
+
+    private final Map<Long, TreeSet<Entry>> genreLeaderboards = new HashMap<>();
+
+    private final Map<Integer, TreeSet<Entry>> yearLeaderboards = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void rebuild() {
+        String sql = "SELECT film_id, COUNT(user_id) AS like_count FROM film_like GROUP BY film_id";
+        Map<Long, Long> counts = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            counts.put(rs.getLong("film_id"), rs.getLong("like_count"));
+        });
+
+        Map<Long, List<Long>> genres = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, genre_id FROM film_genre", rs -> {
+            genres.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>()).add(rs.getLong("genre_id"));
+        });
+        Map<Long, Attributes> loaded = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, EXTRACT(YEAR FROM release_date) AS release_year FROM film", rs -> {
+            long filmId = rs.getLong("film_id");
+            loaded.put(filmId, new Attributes(genres.getOrDefault(filmId, List.of()).stream()
+                    .mapToLong(Long::longValue).toArray(), rs.getInt("release_year")));
+        });
+
+        lock.writeLock().lock();
+        try {
+            likeCounts.clear();
+            leaderboard.clear();
+            genreLeaderboards.clear();
+            yearLeaderboards.clear();
+            attributes.clear();
+            attributes.putAll(loaded);
+            counts.forEach(this::setLikes);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Индекс популярности перестроен, фильмов с лайками – {}", counts.size());
+    }
+
+    @Override
+    public void likeAdded(Long filmId, Long userId) {
+        changeLikes(filmId, 1);
+    }
+
+    @Override
+    public void likeRemoved(Long filmId, Long userId) {
+        changeLikes(filmId, -1);
+    }
+
+    /**
+     * Жанры и год выхода нового или изменённого фильма; если у фильма есть лайки,
+     * он переносится в таблицы новых жанров и года.
+     */
+    public void filmSaved(Film film) {
+        Long filmId = film.getId();
+        long[] genreIds = film.getGenres() == null ? new long[0] : film.getGenres().stream()
+                .mapToLong(Genre::getId)
+                .distinct()
+                .toArray();
+        Attributes updated = new Attributes(genreIds, film.getReleaseDate().getYear());
+        lock.writeLock().lock();
+        try {
+            Long likes = likeCounts.get(filmId);
+            if (likes != null) {
+                setLikes(filmId, 0);
+            }
+            attributes.put(filmId, updated);
+            if (likes != null) {
+                setLikes(filmId, likes);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> getTopFilmIds(int count) {
+        return getTopFilmIds(count, PopularFilmsFilter.NONE);
+    }
+
+    /**
+     * Топ-K с фильтром: обходится таблица жанра или года, при обоих фильтрах – таблица жанра
+     * с проверкой года, так что читаются K подходящих фильмов и пропущенные фильмы того же жанра.
+     */
+    public List<Long> getTopFilmIds(int count, PopularFilmsFilter filter) {
+        lock.readLock().lock();
+        try {
+            if (filter.genreId() != null) {
+                Integer year = filter.year();
+                return top(genreLeaderboards.get(filter.genreId()), count,
+                        filmId -> year == null || attributes.get(filmId).year() == year);
+            }
+            if (filter.year() != null) {
+                return top(yearLeaderboards.get(filter.year()), count, filmId -> true);
+            }
+            return top(leaderboard, count, filmId -> true);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Топ-K среди всех фильмов с лайками, которые проходят условие. Подходит, когда условию
+     * отвечает заметная доля фильмов: обход останавливается на K-м подходящем.
+     */
+    public List<Long> getTopFilmIds(int count, LongPredicate condition) {
+        lock.readLock().lock();
+        try {
+            return top(leaderboard, count, condition);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<Long> top(TreeSet<Entry> board, int count, LongPredicate condition) {
+        if (board == null) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(Math.min(count, board.size()));
+        Iterator<Entry> iterator = board.iterator();
+        while (ids.size() < count && iterator.hasNext()) {
+            long filmId = iterator.next().filmId();
+            if (condition.test(filmId)) {
+                ids.add(filmId);
+            }
+        }
+        return ids;
+    }
+
+    public long getLikes(Long filmId) {
+        lock.readLock().lock();
+        try {
+            return likeCounts.getOrDefault(filmId, 0L);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] getLikes(long[] filmIds) {
+        long[] likes = new long[filmIds.length];
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < filmIds.length; i++) {
+                likes[i] = likeCounts.getOrDefault(filmIds[i], 0L);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return likes;
+    }
+
+    private void changeLikes(Long filmId, long delta) {
+        lock.writeLock().lock();
+        try {
+            setLikes(filmId, Math.max(0, likeCounts.getOrDefault(filmId, 0L) + delta));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setLikes(Long filmId, long likes) {
+        Attributes filmAttributes = attributes.get(filmId);
+        Long previous = likeCounts.remove(filmId);
+        if (previous != null) {
+            Entry entry = new Entry(filmId, previous);
+            leaderboard.remove(entry);
+            if (filmAttributes != null) {
+                for (long genreId : filmAttributes.genreIds()) {
+                    TreeSet<Entry> board = genreLeaderboards.get(genreId);
+                    board.remove(entry);
+                    if (board.isEmpty()) {
+                        genreLeaderboards.remove(genreId);
+                    }
+                }
+                TreeSet<Entry> board = yearLeaderboards.get(filmAttributes.year());
+                board.remove(entry);
+                if (board.isEmpty()) {
+                    yearLeaderboards.remove(filmAttributes.year());
+                }
+            }
+        }
+        if (likes > 0) {
+            Entry entry = new Entry(filmId, likes);
+            likeCounts.put(filmId, likes);
+            leaderboard.add(entry);
+            if (filmAttributes != null) {
+                for (long genreId : filmAttributes.genreIds()) {
+                    genreLeaderboards.computeIfAbsent(genreId, id -> new TreeSet<>(BY_LIKES_DESC)).add(entry);
+                }
+                yearLeaderboards.computeIfAbsent(filmAttributes.year(), year -> new TreeSet<>(BY_LIKES_DESC))
+                        .add(entry);
+            }
+        }
+    }
+
+    private record Entry(long filmId, long likes) {
+    }
+
+    private record Attributes(long[] genreIds, int year) {
+    }
+}
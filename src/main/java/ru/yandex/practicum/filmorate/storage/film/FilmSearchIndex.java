@@ -0,0 +1,359 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.BadRequestException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LongHashSet;
+import ru.yandex.practicum.filmorate.storage.SortedLongArrays;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Полнотекстовый поиск по названию и описанию: обратный индекс «слово → отсортированные ID фильмов» в памяти.
+ * Слова приводятся к нижнему регистру, «ё» заменяется на «е», разделитель – всё, кроме букв и цифр.
+ * Каждое слово запроса ищется как префикс, так что «брат карам» находит «Братья Карамазовы».
+ * Фильм подходит, если содержит все слова запроса; найденные упорядочиваются по лайкам из
+ * {@link FilmPopularityIndex}, лайки из буфера отложенной записи учитываются после его сброса.
+ * <p>
+ * Если совпадений много (частое слово или короткий префикс вроде «а»), они не сортируются целиком:
+ * таблица лидеров {@link FilmPopularityIndex} обходится сверху, пока не найдётся нужное число фильмов.
+ * Индекс строится при старте из {@link FilmStorage}, новые и изменённые фильмы сервис передаёт
+ * через {@link #filmSaved(Film)}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmSearchIndex {
+
+    private static final Comparator<Match> WORST_FIRST = Comparator.comparingLong(Match::likes)
+            .thenComparing(Comparator.comparingLong(Match::filmId).reversed());
+
+    /**
+     * До этого числа кандидатов они ранжируются целиком, дальше дешевле обходить таблицу лидеров.
+     */
+    private static final int RANKED_CANDIDATES_LIMIT = 2048;
+
+    /**
+     * Префикс, который раскрывается не более чем в столько слов, сливается в один отсортированный список
+     * и пересекается с остальными; более широкие проверяются по словам фильма.
+     */
+    private static final int MERGED_LISTS_LIMIT = 16;
+
+    private final FilmStorage filmStorage;
+
+    private final FilmPopularityIndex filmPopularityIndex;
+
+    private final NavigableMap<String, Postings> postings = new TreeMap<>();
+
+    private final Map<Long, String[]> filmTerms = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            filmTerms.clear();
+            filmStorage.streamAllFilms(this::index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Поисковый индекс перестроен, фильмов – {}, слов – {}", filmTerms.size(), postings.size());
+    }
+
+    public void filmSaved(Film film) {
+        lock.writeLock().lock();
+        try {
+            unindex(film.getId());
+            index(film);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void filmsSaved(Collection<Film> films) {
+        lock.writeLock().lock();
+        try {
+            for (Film film : films) {
+                unindex(film.getId());
+                index(film);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * ID не более {@code count} фильмов, содержащих все слова запроса, по убыванию лайков.
+     */
+    public List<Long> search(String query, int count) {
+        Set<String> queryTerms = terms(query);
+        if (queryTerms.isEmpty()) {
+            throw new BadRequestException("Поисковый запрос должен содержать буквы или цифры.");
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Term> matched = new ArrayList<>(queryTerms.size());
+            for (String prefix : queryTerms) {
+                Collection<Postings> lists = withPrefix(prefix);
+                long size = lists.stream().mapToLong(Postings::size).sum();
+                if (size == 0) {
+                    return List.of();
+                }
+                matched.add(new Term(prefix, lists, size));
+            }
+            matched.sort(Comparator.comparingLong(Term::size));
+            return search(matched, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Слова запроса, начиная с самого редкого, дают отсортированные списки ID, которые пересекаются
+     * слиянием. Широкие префиксы проверяются по словам самого фильма. Если кандидатов
+     * немного, они ранжируются целиком, иначе таблица лидеров обходится сверху, пока не наберётся
+     * {@code count} подходящих, а недостающие добираются из фильмов без лайков по возрастанию ID.
+     */
+    private List<Long> search(List<Term> matched, int count) {
+        long[] candidates = null;
+        List<String> unchecked = new ArrayList<>();
+        for (Term term : matched) {
+            if (term.lists().size() <= MERGED_LISTS_LIMIT
+                    || candidates == null && term.size() <= RANKED_CANDIDATES_LIMIT) {
+                long[] ids = merge(term.lists());
+                candidates = candidates == null ? ids : SortedLongArrays.intersection(candidates, ids);
+            } else {
+                unchecked.add(term.prefix());
+            }
+            if (candidates != null && candidates.length == 0) {
+                return List.of();
+            }
+        }
+
+        long[] found = candidates;
+        LongPredicate matches = filmId -> (found == null || Arrays.binarySearch(found, filmId) >= 0)
+                && containsAll(filmTerms.get(filmId), unchecked);
+        if (found != null && found.length <= RANKED_CANDIDATES_LIMIT) {
+            long[] filtered = Arrays.stream(found)
+                    .filter(filmId -> containsAll(filmTerms.get(filmId), unchecked))
+                    .toArray();
+            return rank(filtered, filmPopularityIndex.getLikes(filtered), count);
+        }
+
+        List<Long> ids = new ArrayList<>(filmPopularityIndex.getTopFilmIds(count, matches));
+        int missing = count - ids.size();
+        if (missing == 0) {
+            return ids;
+        }
+        if (found != null) {
+            for (int i = 0; i < found.length && missing > 0; i++) {
+                if (containsAll(filmTerms.get(found[i]), unchecked) && filmPopularityIndex.getLikes(found[i]) == 0) {
+                    ids.add(found[i]);
+                    missing--;
+                }
+            }
+            return ids;
+        }
+
+        // все слова – широкие префиксы: в каждом списке самого редкого достаточно первых подходящих
+        LongHashSet unliked = new LongHashSet();
+        for (Postings list : matched.get(0).lists()) {
+            int taken = 0;
+            for (int i = 0; i < list.size && taken < missing; i++) {
+                long filmId = list.ids[i];
+                if (matches.test(filmId) && filmPopularityIndex.getLikes(filmId) == 0) {
+                    unliked.add(filmId);
+                    taken++;
+                }
+            }
+        }
+        unliked.stream().sorted().limit(missing).forEach(ids::add);
+        return ids;
+    }
+
+    /**
+     * Объединение списков попарными слияниями, как в сортировке слиянием.
+     */
+    private static long[] merge(Collection<Postings> lists) {
+        List<long[]> arrays = new ArrayList<>(lists.size());
+        for (Postings list : lists) {
+            arrays.add(list.toArray());
+        }
+        while (arrays.size() > 1) {
+            List<long[]> merged = new ArrayList<>((arrays.size() + 1) / 2);
+            for (int i = 0; i < arrays.size(); i += 2) {
+                merged.add(i + 1 < arrays.size() ? SortedLongArrays.union(arrays.get(i), arrays.get(i + 1))
+                        : arrays.get(i));
+            }
+            arrays = merged;
+        }
+        return arrays.get(0);
+    }
+
+    private Collection<Postings> withPrefix(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+    }
+
+    private static boolean containsAll(String[] terms, List<String> prefixes) {
+        if (terms == null) {
+            return false;
+        }
+        for (String prefix : prefixes) {
+            boolean matched = false;
+            for (String term : terms) {
+                if (term.startsWith(prefix)) {
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Long> rank(long[] filmIds, long[] likes, int count) {
+        PriorityQueue<Match> best = new PriorityQueue<>(WORST_FIRST);
+        for (int i = 0; i < filmIds.length; i++) {
+            Match match = new Match(filmIds[i], likes[i]);
+            if (best.size() < count) {
+                best.add(match);
+            } else if (WORST_FIRST.compare(match, best.peek()) > 0) {
+                best.poll();
+                best.add(match);
+            }
+        }
+
+        List<Match> sorted = new ArrayList<>(best);
+        sorted.sort(WORST_FIRST.reversed());
+        return sorted.stream().map(Match::filmId).toList();
+    }
+
+    private void index(Film film) {
+        Set<String> terms = terms(film.getName());
+        terms.addAll(terms(film.getDescription()));
+
+        String[] stored = new String[terms.size()];
+        int i = 0;
+        for (String term : terms) {
+            Postings list = postings.computeIfAbsent(term, Postings::new);
+            list.add(film.getId());
+            // слово хранится один раз – в ключе списка, фильм ссылается на тот же экземпляр
+            stored[i++] = list.term;
+        }
+        filmTerms.put(film.getId(), stored);
+    }
+
+    private void unindex(Long filmId) {
+        String[] terms = filmTerms.remove(filmId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            list.remove(filmId);
+            if (list.size() == 0) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static Set<String> terms(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                char lower = Character.toLowerCase(c);
+                term.append(lower == 'ё' ? 'е' : lower);
+            } else if (!term.isEmpty()) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (!term.isEmpty()) {
+            terms.add(term.toString());
+        }
+        return terms;
+    }
+
+    /**
+     * Отсортированный список ID с запасом ёмкости. Новые фильмы получают возрастающие ID,
+     * поэтому добавление почти всегда дописывает в конец без сдвига.
+     */
+    private static final class Postings {
+        private final String term;
+
+        private long[] ids = new long[1];
+
+        private int size;
+
+        private Postings(String term) {
+            this.term = term;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private void add(long filmId) {
+            int insertAt = size;
+            if (size > 0 && ids[size - 1] >= filmId) {
+                int position = Arrays.binarySearch(ids, 0, size, filmId);
+                if (position >= 0) {
+                    return;
+                }
+                insertAt = -position - 1;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + Math.max(2, size >> 1));
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = filmId;
+            size++;
+        }
+
+        private void remove(long filmId) {
+            int position = Arrays.binarySearch(ids, 0, size, filmId);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+        }
+
+        private long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+
+    private record Term(String prefix, Collection<Postings> lists, long size) {
+    }
+
+    private record Match(long filmId, long likes) {
+    }
+}
@@ -1,25 +1,45 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeEvent;
+import ru.yandex.practicum.filmorate.model.PopularFilmsFilter;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
     Film addFilm(Film film);
 
+    List<Film> addFilms(List<Film> films);
+
     Film updateFilm(Film film);
 
     Collection<Film> getAllFilms();
 
+    List<Film> getFilmsPage(long afterId, int limit);
+
+    void streamAllFilms(Consumer<Film> consumer);
+
     Film getFilmById(Long id);
 
+    List<Film> getFilmsByIds(List<Long> ids);
+
     void checkFilmExist(Long id);
 
-    void addLike(Long filmId, Long userId);
+    Set<Long> getExistingFilmIds(Collection<Long> ids);
+
+    boolean addLike(Long filmId, Long userId);
+
+    boolean removeLike(Long filmId, Long userId);
+
+    boolean[] applyLikes(List<LikeEvent> events);
 
-    void removeLike(Long filmId, Long userId);
+    public List<Film> getPopularFilms(int count, PopularFilmsFilter filter);
 
-    public List<Film> getPopularFilms(int count);
+    default List<Film> getPopularFilms(int count) {
+        return getPopularFilms(count, PopularFilmsFilter.NONE);
+    }
 
 }
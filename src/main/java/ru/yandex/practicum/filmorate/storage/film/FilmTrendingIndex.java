@@ -0,0 +1,298 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.BadRequestException;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Трендовые фильмы – лайки за последние N часов. Время делится на вёдра фиксированной длины,
+ * кольцо хранит лайки по фильмам (кто лайкнул) для каждого ведра самого длинного окна. Для каждого
+ * поддерживаемого окна держится своя таблица лидеров, как в {@link FilmPopularityIndex}: новый лайк
+ * увеличивает сумму фильма во всех окнах, а когда ведро выпадает из окна, его счётчики вычитаются.
+ * Чтение топ-K – обход первых K элементов, память ограничена числом вёдер и фильмов с лайками в них.
+ * <p>
+ * Для лайков внутри кольца запоминается ведро, в которое они попали, и снятый лайк вычитается
+ * именно из него. Снятие лайка старше кольца (или неизвестного индексу) окна не меняет.
+ */
+@Slf4j
+@Component
+public class FilmTrendingIndex implements LikeChangeListener {
+
+    private static final Pattern WINDOW_PATTERN = Pattern.compile("(\\d+)([mhd])");
+
+    private static final Comparator<Entry> BY_LIKES_DESC = Comparator.comparingLong(Entry::likes).reversed()
+            .thenComparingLong(Entry::filmId);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Clock clock;
+
+    private final long bucketMillis;
+
+    private final Map<String, Window> windows = new LinkedHashMap<>();
+
+    /**
+     * Слот кольца: фильм → юзеры, лайкнувшие его в этом ведре.
+     */
+    private final List<Map<Long, Set<Long>>> ring;
+
+    /**
+     * Фильм → юзер → ведро лайка, для лайков, которые ещё в кольце.
+     */
+    private final Map<Long, Map<Long, Long>> likeBuckets = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long currentBucket;
+
+    public FilmTrendingIndex(JdbcTemplate jdbcTemplate, Clock clock,
+                             @Value("${filmorate.trending.bucket:PT10M}") Duration bucket,
+                             @Value("${filmorate.trending.windows:1h,24h,7d}") List<String> windowNames) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.bucketMillis = bucket.toMillis();
+
+        int ringSize = 0;
+        for (String name : windowNames) {
+            long millis = parse(name.trim()).toMillis();
+            if (millis < bucketMillis || millis % bucketMillis != 0) {
+                throw new IllegalArgumentException("Окно " + name + " должно быть кратно ведру " + bucket);
+            }
+            Window window = new Window((int) (millis / bucketMillis));
+            windows.put(name.trim(), window);
+            ringSize = Math.max(ringSize, window.buckets);
+        }
+
+        this.ring = new ArrayList<>(ringSize);
+        for (int i = 0; i < ringSize; i++) {
+            ring.add(new HashMap<>());
+        }
+        this.currentBucket = bucketAt(clock.millis());
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        long nowBucket = bucketAt(clock.millis());
+        long oldestBucket = nowBucket - ring.size() + 1;
+        List<long[]> likes = new ArrayList<>();
+        jdbcTemplate.query("SELECT film_id, user_id, liked_at FROM film_like WHERE liked_at >= ?", rs -> {
+            long bucket = bucketAt(rs.getTimestamp("liked_at").getTime());
+            likes.add(new long[]{rs.getLong("film_id"), rs.getLong("user_id"), Math.min(bucket, nowBucket)});
+        }, new Timestamp(oldestBucket * bucketMillis));
+
+        lock.writeLock().lock();
+        try {
+            reset(nowBucket);
+            for (long[] like : likes) {
+                add(like[0], like[1], like[2]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Индекс трендов перестроен, лайков в самом длинном окне – {}", likes.size());
+    }
+
+    @Override
+    public void likeAdded(Long filmId, Long userId) {
+        lock.writeLock().lock();
+        try {
+            advance(bucketAt(clock.millis()));
+            add(filmId, userId, currentBucket);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void likeRemoved(Long filmId, Long userId) {
+        lock.writeLock().lock();
+        try {
+            advance(bucketAt(clock.millis()));
+            Map<Long, Long> users = likeBuckets.get(filmId);
+            Long bucket = users == null ? null : users.remove(userId);
+            if (bucket == null) {
+                return;
+            }
+            if (users.isEmpty()) {
+                likeBuckets.remove(filmId);
+            }
+            Map<Long, Set<Long>> likedIn = ring.get(slot(bucket));
+            Set<Long> likedBy = likedIn.get(filmId);
+            likedBy.remove(userId);
+            if (likedBy.isEmpty()) {
+                likedIn.remove(filmId);
+            }
+            for (Window window : windows.values()) {
+                if (bucket > currentBucket - window.buckets) {
+                    window.change(filmId, -1);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> getTopFilmIds(String windowName, int count) {
+        Window window = windows.get(windowName);
+        if (window == null) {
+            throw new BadRequestException("Окно " + windowName + " не поддерживается. Доступны: "
+                    + String.join(", ", windows.keySet()) + ".");
+        }
+
+        long nowBucket = bucketAt(clock.millis());
+        lock.readLock().lock();
+        try {
+            if (currentBucket >= nowBucket) {
+                return window.top(count);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            advance(nowBucket);
+            return window.top(count);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void advance(long targetBucket) {
+        if (targetBucket <= currentBucket) {
+            return;
+        }
+        if (targetBucket - currentBucket >= ring.size()) {
+            reset(targetBucket);
+            return;
+        }
+        while (currentBucket < targetBucket) {
+            currentBucket++;
+            for (Window window : windows.values()) {
+                ring.get(slot(currentBucket - window.buckets))
+                        .forEach((filmId, users) -> window.change(filmId, -users.size()));
+            }
+            // после вычитания из самого длинного окна слот свободен для нового ведра
+            expire(currentBucket - ring.size());
+        }
+    }
+
+    /**
+     * Лайк в ведре {@code bucket}, не старше кольца. Повторный лайк того же юзера, ещё лежащий
+     * в кольце, не учитывается.
+     */
+    private void add(long filmId, long userId, long bucket) {
+        Map<Long, Long> users = likeBuckets.computeIfAbsent(filmId, id -> new HashMap<>());
+        if (users.putIfAbsent(userId, bucket) != null) {
+            return;
+        }
+        ring.get(slot(bucket)).computeIfAbsent(filmId, id -> new HashSet<>()).add(userId);
+        for (Window window : windows.values()) {
+            if (bucket > currentBucket - window.buckets) {
+                window.change(filmId, 1);
+            }
+        }
+    }
+
+    private void expire(long bucket) {
+        Map<Long, Set<Long>> expired = ring.get(slot(bucket));
+        expired.forEach((filmId, users) -> {
+            Map<Long, Long> buckets = likeBuckets.get(filmId);
+            users.forEach(buckets::remove);
+            if (buckets.isEmpty()) {
+                likeBuckets.remove(filmId);
+            }
+        });
+        expired.clear();
+    }
+
+    private void reset(long bucket) {
+        ring.forEach(Map::clear);
+        likeBuckets.clear();
+        windows.values().forEach(Window::clear);
+        currentBucket = bucket;
+    }
+
+    private long bucketAt(long millis) {
+        return Math.floorDiv(millis, bucketMillis);
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) ring.size());
+    }
+
+    static Duration parse(String window) {
+        Matcher matcher = WINDOW_PATTERN.matcher(window);
+        if (!matcher.matches()) {
+            throw new BadRequestException("Окно " + window + " задано неверно, ожидается число и m, h или d.");
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        return switch (matcher.group(2)) {
+            case "m" -> Duration.ofMinutes(amount);
+            case "h" -> Duration.ofHours(amount);
+            default -> Duration.ofDays(amount);
+        };
+    }
+
+    private static final class Window {
+        private final int buckets;
+
+        private final Map<Long, Long> sums = new HashMap<>();
+
+        private final TreeSet<Entry> leaderboard = new TreeSet<>(BY_LIKES_DESC);
+
+        private Window(int buckets) {
+            this.buckets = buckets;
+        }
+
+        private void change(Long filmId, long delta) {
+            Long previous = sums.remove(filmId);
+            if (previous != null) {
+                leaderboard.remove(new Entry(filmId, previous));
+            }
+            long likes = (previous == null ? 0 : previous) + delta;
+            if (likes > 0) {
+                sums.put(filmId, likes);
+                leaderboard.add(new Entry(filmId, likes));
+            }
+        }
+
+        private List<Long> top(int count) {
+            List<Long> ids = new ArrayList<>(Math.min(count, leaderboard.size()));
+            Iterator<Entry> iterator = leaderboard.iterator();
+            while (ids.size() < count && iterator.hasNext()) {
+                ids.add(iterator.next().filmId());
+            }
+            return ids;
+        }
+
+        private void clear() {
+            sums.clear();
+            leaderboard.clear();
+        }
+    }
+
+    private record Entry(long filmId, long likes) {
+    }
+}
@@ -1,39 +1,133 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.BadRequestException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeEvent;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LongHashSet;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.PopularFilmsFilter;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+/**
+ * Хранилище фильмов без базы данных для профиля memory. Фильмы лежат в конкурентной карте,
+ * отсортированной по ID, лайки – в {@link LongHashSet} самого фильма под его же монитором.
+ * Обновление кладёт в карту новый объект фильма и переносит в него множество лайков прежнего.
+ * Наружу отдаются и в карту кладутся только копии: фильм, который вызывающий меняет перед
+ * {@link #updateFilm(Film)}, не виден другим потокам, а неудачное обновление ничего не меняет.
+ * <p>
+ * Профиль не полностью без базы: жанры и рейтинги MPA по-прежнему берутся из справочников в H2
+ * ({@code GenreDbStorage}, {@code MpaDbStorage}), а индексы популярности, трендов и матрица лайков
+ * при старте перестраиваются запросами к её пустым таблицам фильмов и лайков. Запросов к базе нет только у операций с самими фильмами и лайками.
+ */
 @Component
+@Profile("memory")
+@RequiredArgsConstructor
+@Timed(value = "filmorate.storage", histogram = true)
 public class InMemoryFilmStorage implements FilmStorage {
-    private final Map<Long, Film> films = new HashMap<>();
+    private final ConcurrentSkipListMap<Long, Film> films = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong idSequence = new AtomicLong();
+
+    private final UserStorage userStorage;
+
+    private final MpaStorage mpaStorage;
+
+    private final GenreStorage genreStorage;
+
+    private final FilmPopularityIndex filmPopularityIndex;
 
     @Override
     public Film addFilm(Film film) {
-        film.setId(getNextId());
-        films.put(film.getId(), film);
+        try {
+            mpaStorage.checkMpaExist(film.getMpa().getId());
+        } catch (NotFoundException e) {
+            throw new BadRequestException("MPA рейтинг с ID " + film.getMpa().getId() + " не существует.");
+        }
+
+        resolveReferences(film);
+        film.setId(idSequence.incrementAndGet());
+        films.put(film.getId(), copy(film));
+        filmPopularityIndex.filmSaved(film);
         return film;
     }
 
+    @Override
+    public List<Film> addFilms(List<Film> films) {
+        films.forEach(this::addFilm);
+        return films;
+    }
+
     @Override
     public Film updateFilm(Film film) {
-        checkFilmExist(film.getId());
-        films.put(film.getId(), film);
+        resolveReferences(film);
+        Film stored = copy(film);
+        if (films.computeIfPresent(film.getId(), (id, current) -> {
+            stored.setLikes(current.getLikes());
+            return stored;
+        }) == null) {
+            throw new NotFoundException("Фильм с ID " + film.getId() + " не найден.");
+        }
+        filmPopularityIndex.filmSaved(film);
         return film;
     }
 
+    private void resolveReferences(Film film) {
+        film.setMpa(mpaStorage.getMpaById(film.getMpa().getId()));
+        if (film.getGenres() != null) {
+            film.setGenres(film.getGenres().stream()
+                    .map(Genre::getId)
+                    .distinct()
+                    .sorted()
+                    .map(genreStorage::getGenreById)
+                    .toList());
+        }
+    }
+
     @Override
     public Collection<Film> getAllFilms() {
-        return films.values();
+        List<Film> all = new ArrayList<>(films.size());
+        films.values().forEach(film -> all.add(copy(film)));
+        return all;
+    }
+
+    @Override
+    public List<Film> getFilmsPage(long afterId, int limit) {
+        return films.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(InMemoryFilmStorage::copy)
+                .toList();
+    }
+
+    @Override
+    public void streamAllFilms(Consumer<Film> consumer) {
+        films.values().forEach(film -> consumer.accept(copy(film)));
     }
 
     @Override
     public Film getFilmById(Long id) {
+        return copy(getStoredFilm(id));
+    }
+
+    private Film getStoredFilm(Long id) {
         Film film = films.get(id);
 
         if (film == null) {
@@ -43,8 +137,13 @@ public class InMemoryFilmStorage implements FilmStorage {
         return film;
     }
 
-    private long getNextId() {
-        return films.keySet().stream().mapToLong(id -> id).max().orElse(0) + 1;
+    @Override
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(InMemoryFilmStorage::copy)
+                .toList();
     }
 
     @Override
@@ -55,17 +154,76 @@ public class InMemoryFilmStorage implements FilmStorage {
     }
 
     @Override
-    public void addLike(Long filmId, Long userId) {
-        throw new RuntimeException("Метод не поддерживается");
+    public Set<Long> getExistingFilmIds(Collection<Long> ids) {
+        return ids.stream()
+                .filter(films::containsKey)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public boolean addLike(Long filmId, Long userId) {
+        userStorage.checkUserExist(userId);
+        LongHashSet likes = getStoredFilm(filmId).getLikes();
+        synchronized (likes) {
+            return likes.add(userId);
+        }
     }
 
     @Override
-    public void removeLike(Long filmId, Long userId) {
-        throw new RuntimeException("Метод не поддерживается");
+    public boolean removeLike(Long filmId, Long userId) {
+        Film film = films.get(filmId);
+        if (film == null) {
+            return false;
+        }
+        LongHashSet likes = film.getLikes();
+        synchronized (likes) {
+            return likes.remove(userId);
+        }
     }
 
     @Override
-    public List<Film> getPopularFilms(int count) {
-        throw new RuntimeException("Метод не поддерживается");
+    public boolean[] applyLikes(List<LikeEvent> events) {
+        boolean[] changed = new boolean[events.size()];
+        for (int i = 0; i < events.size(); i++) {
+            LikeEvent event = events.get(i);
+            changed[i] = event.getOp() == LikeOperation.LIKE
+                    ? addLike(event.getFilmId(), event.getUserId())
+                    : removeLike(event.getFilmId(), event.getUserId());
+        }
+        return changed;
+    }
+
+    /**
+     * Топ берётся из {@link FilmPopularityIndex}, который сервис обновляет после каждого изменившегося лайка,
+     * как и в режиме filmorate.popular-films.source=index у хранилища в базе.
+     */
+    @Override
+    public List<Film> getPopularFilms(int count, PopularFilmsFilter filter) {
+        return getFilmsByIds(filmPopularityIndex.getTopFilmIds(count, filter));
+    }
+
+    /**
+     * Копия фильма со своими справочными объектами и снимком лайков.
+     */
+    private static Film copy(Film film) {
+        Film copy = new Film();
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+        if (film.getMpa() != null) {
+            copy.setMpa(new MpaRating(film.getMpa().getId(), film.getMpa().getName()));
+        }
+        if (film.getGenres() != null) {
+            copy.setGenres(film.getGenres().stream()
+                    .map(genre -> new Genre(genre.getId(), genre.getName()))
+                    .toList());
+        }
+        LongHashSet likes = film.getLikes();
+        synchronized (likes) {
+            copy.setLikes(LongHashSet.of(likes.toArray()));
+        }
+        return copy;
     }
 }
@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+/**
+ * Индекс в памяти, который нужно держать в актуальном состоянии после записи лайка в film_like.
+ * Вызывается только для лайков, которые действительно изменили таблицу.
+ */
+public interface LikeChangeListener {
+
+    void likeAdded(Long filmId, Long userId);
+
+    void likeRemoved(Long filmId, Long userId);
+}
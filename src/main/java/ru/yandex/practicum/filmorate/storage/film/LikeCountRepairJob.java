@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@Profile("!memory")
+@RequiredArgsConstructor
+public class LikeCountRepairJob {
+
+    private final FilmDbStorage filmDbStorage;
+
+    @Scheduled(initialDelayString = "${filmorate.like-count.repair-interval:PT1H}",
+            fixedDelayString = "${filmorate.like-count.repair-interval:PT1H}")
+    public int repair() {
+        int repaired = filmDbStorage.repairLikeCounts();
+        if (repaired > 0) {
+            log.warn("Счётчик лайков исправлен у {} фильмов", repaired);
+        }
+        return repaired;
+    }
+}
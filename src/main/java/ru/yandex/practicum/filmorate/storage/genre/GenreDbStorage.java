@@ -1,38 +1,60 @@
 package ru.yandex.practicum.filmorate.storage.genre;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceCache;
 import ru.yandex.practicum.filmorate.storage.mappers.GenreMapper;
 
 import java.util.Collection;
+import java.util.List;
 
 @Component
-@RequiredArgsConstructor
+@Timed(value = "filmorate.storage", histogram = true)
 public class GenreDbStorage implements GenreStorage {
 
     private final JdbcTemplate jdbcTemplate;
 
+    private final ReferenceCache<Genre> cache;
+
+    public GenreDbStorage(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = new ReferenceCache<>(this::loadGenres, Genre::getId,
+                genre -> new Genre(genre.getId(), genre.getName()));
+    }
+
+    @PostConstruct
+    public void invalidateCache() {
+        cache.invalidate();
+    }
+
     @Override
     public Collection<Genre> getAllGenres() {
-        String sql = "SELECT * FROM genre ORDER BY genre_id";
-        return jdbcTemplate.query(sql, new GenreMapper());
+        return cache.getAll();
     }
 
     @Override
     public Genre getGenreById(Long id) {
-        checkGenreExist(id);
-        String sql = "SELECT * FROM genre WHERE genre_id = ?";
-        return jdbcTemplate.queryForObject(sql, new GenreMapper(), id);
+        return cache.get(id)
+                .orElseThrow(() -> new NotFoundException("Жанр с ID " + id + " не найден."));
     }
 
     @Override
     public void checkGenreExist(Long id) {
-        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM genre WHERE genre_id = ?", Integer.class, id);
-        if (count == 0 || count == null) {
+        if (!cache.contains(id)) {
             throw new NotFoundException("Жанр с ID " + id + " не найден.");
         }
     }
+
+    public ReferenceCache<Genre> getCache() {
+        return cache;
+    }
+
+    private List<Genre> loadGenres() {
+        String sql = "SELECT * FROM genre ORDER BY genre_id";
+        return jdbcTemplate.query(sql, new GenreMapper());
+    }
 }
@@ -1,38 +1,60 @@
 package ru.yandex.practicum.filmorate.storage.mpa;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceCache;
 import ru.yandex.practicum.filmorate.storage.mappers.MpaMapper;
 
 import java.util.Collection;
+import java.util.List;
 
 @Component
-@RequiredArgsConstructor
+@Timed(value = "filmorate.storage", histogram = true)
 public class MpaDbStorage implements MpaStorage {
 
     private final JdbcTemplate jdbcTemplate;
 
+    private final ReferenceCache<MpaRating> cache;
+
+    public MpaDbStorage(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = new ReferenceCache<>(this::loadMpa, MpaRating::getId,
+                mpa -> new MpaRating(mpa.getId(), mpa.getName()));
+    }
+
+    @PostConstruct
+    public void invalidateCache() {
+        cache.invalidate();
+    }
+
     @Override
     public Collection<MpaRating> getAllMpa() {
-        String sql = "SELECT * FROM mpa_rating ORDER BY rating_id";
-        return jdbcTemplate.query(sql, new MpaMapper());
+        return cache.getAll();
     }
 
     @Override
     public MpaRating getMpaById(Long id) {
-        checkMpaExist(id);
-        String sql = "SELECT * FROM mpa_rating WHERE rating_id = ?";
-        return jdbcTemplate.queryForObject(sql, new MpaMapper(), id);
+        return cache.get(id)
+                .orElseThrow(() -> new NotFoundException("Рейтинг с ID " + id + " не найден."));
     }
 
     @Override
     public void checkMpaExist(Long id) {
-        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM mpa_rating WHERE rating_id = ?", Integer.class, id);
-        if (count == 0 || count == null) {
+        if (!cache.contains(id)) {
             throw new NotFoundException("Рейтинг с ID " + id + " не найден.");
         }
     }
+
+    public ReferenceCache<MpaRating> getCache() {
+        return cache;
+    }
+
+    private List<MpaRating> loadMpa() {
+        String sql = "SELECT * FROM mpa_rating ORDER BY rating_id";
+        return jdbcTemplate.query(sql, new MpaMapper());
+    }
 }
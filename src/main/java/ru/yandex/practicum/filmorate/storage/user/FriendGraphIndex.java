@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.SortedLongArrays;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Граф дружбы в памяти: для каждого юзера отсортированные массивы ID друзей и тех, кто добавил его в друзья.
+ * Массивы не меняются на месте, а заменяются копией, поэтому чтение идёт без блокировок.
+ * Пока граф не построен после старта, isReady() возвращает false и запросы обслуживаются через SQL.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendGraphIndex {
+
+    private static final Comparator<Map.Entry<Long, Integer>> SUGGESTION_ORDER =
+            Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, long[]> friends = new ConcurrentHashMap<>();
+
+    private final Map<Long, long[]> followers = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    @Value("${filmorate.friends.index.enabled:true}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        ready = false;
+        Map<Long, List<Long>> loaded = new HashMap<>();
+        Map<Long, List<Long>> loadedFollowers = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, friend_id FROM friendship", rs -> {
+            long userId = rs.getLong("user_id");
+            long friendId = rs.getLong("friend_id");
+            loaded.computeIfAbsent(userId, id -> new ArrayList<>()).add(friendId);
+            loadedFollowers.computeIfAbsent(friendId, id -> new ArrayList<>()).add(userId);
+        });
+
+        fill(friends, loaded);
+        fill(followers, loadedFollowers);
+        ready = true;
+        log.info("Граф дружбы построен, юзеров с друзьями – {}", loaded.size());
+    }
+
+    private static void fill(Map<Long, long[]> target, Map<Long, List<Long>> source) {
+        target.clear();
+        source.forEach((userId, ids) -> target.put(userId, ids.stream().mapToLong(Long::longValue).sorted().toArray()));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public synchronized void addFriend(long userId, long friendId) {
+        insert(friends, userId, friendId);
+        insert(followers, friendId, userId);
+    }
+
+    public synchronized void removeFriend(long userId, long friendId) {
+        delete(friends, userId, friendId);
+        delete(followers, friendId, userId);
+    }
+
+    private static void insert(Map<Long, long[]> target, long userId, long value) {
+        target.put(userId, SortedLongArrays.with(target.getOrDefault(userId, SortedLongArrays.EMPTY), value));
+    }
+
+    private static void delete(Map<Long, long[]> target, long userId, long value) {
+        long[] updated = SortedLongArrays.without(target.getOrDefault(userId, SortedLongArrays.EMPTY), value);
+        if (updated.length == 0) {
+            target.remove(userId);
+        } else {
+            target.put(userId, updated);
+        }
+    }
+
+    public long[] getFriendIds(long userId) {
+        return friends.getOrDefault(userId, SortedLongArrays.EMPTY);
+    }
+
+    public List<Long> getCommonFriendIds(long userId, long otherId) {
+        return Arrays.stream(SortedLongArrays.intersection(getFriendIds(userId), getFriendIds(otherId)))
+                .boxed()
+                .toList();
+    }
+
+    /**
+     * Кандидаты в друзья: юзеры, у которых больше всего общих друзей с данным, кроме него самого
+     * и уже добавленных друзей. Обходятся только друзья юзера и их подписчики, без полного перебора.
+     */
+    public List<Long> getSuggestedFriendIds(long userId, int limit) {
+        long[] userFriends = getFriendIds(userId);
+        Map<Long, Integer> mutualCounts = new HashMap<>();
+
+        for (long friendId : userFriends) {
+            for (long candidate : followers.getOrDefault(friendId, SortedLongArrays.EMPTY)) {
+                if (candidate != userId && !SortedLongArrays.contains(userFriends, candidate)) {
+                    mutualCounts.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+
+        PriorityQueue<Map.Entry<Long, Integer>> top = new PriorityQueue<>(SUGGESTION_ORDER.reversed());
+        for (Map.Entry<Long, Integer> entry : mutualCounts.entrySet()) {
+            top.offer(entry);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        return top.stream()
+                .sorted(SUGGESTION_ORDER)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
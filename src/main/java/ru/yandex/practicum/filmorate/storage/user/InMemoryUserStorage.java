@@ -1,42 +1,96 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.LongHashSet;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.SortedLongArrays;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+/**
+ * Хранилище юзеров без базы данных для профиля memory. Друзья юзера лежат в {@link LongHashSet} самого юзера,
+ * обратные связи (кто добавил его в друзья) – в отдельной карте; каждое множество меняется под своим монитором.
+ * Наружу отдаются и в карту кладутся только копии юзеров, как в {@code InMemoryFilmStorage}.
+ * Индекс графа дружбы в профиле memory выключен, база для юзеров не нужна; ограничения профиля в целом
+ * описаны в {@code InMemoryFilmStorage}.
+ */
 @Component
+@Profile("memory")
+@Timed(value = "filmorate.storage", histogram = true)
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Long, User> users = new HashMap<>();
+    private static final Comparator<Map.Entry<Long, Integer>> SUGGESTION_ORDER =
+            Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    private final ConcurrentSkipListMap<Long, User> users = new ConcurrentSkipListMap<>();
+
+    private final Map<Long, LongHashSet> followers = new ConcurrentHashMap<>();
+
+    private final AtomicLong idSequence = new AtomicLong();
 
     @Override
     public User addUser(User user) {
         if (user.getName() == null || user.getName().isBlank()) {
             user.setName(user.getLogin());
         }
-        user.setId(getNextId());
-        users.put(user.getId(), user);
+        user.setId(idSequence.incrementAndGet());
+        users.put(user.getId(), copy(user));
         return user;
     }
 
     @Override
     public User updateUser(User user) {
-        checkUserExist(user.getId());
-        users.put(user.getId(), user);
+        User stored = copy(user);
+        if (users.computeIfPresent(user.getId(), (id, current) -> {
+            stored.setFriends(current.getFriends());
+            return stored;
+        }) == null) {
+            throw new NotFoundException("Пользователь с ID " + user.getId() + " не найден.");
+        }
         return user;
     }
 
     @Override
     public Collection<User> getAllUsers() {
-        return users.values();
+        List<User> all = new ArrayList<>(users.size());
+        users.values().forEach(user -> all.add(copy(user)));
+        return all;
+    }
+
+    @Override
+    public List<User> getUsersPage(long afterId, int limit) {
+        return users.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(InMemoryUserStorage::copy)
+                .toList();
+    }
+
+    @Override
+    public void streamAllUsers(Consumer<User> consumer) {
+        users.values().forEach(user -> consumer.accept(copy(user)));
     }
 
     @Override
     public User getUserById(Long id) {
+        return copy(getStoredUser(id));
+    }
+
+    private User getStoredUser(Long id) {
         User user = users.get(id);
 
         if (user == null) {
@@ -46,10 +100,6 @@ public class InMemoryUserStorage implements UserStorage {
         return user;
     }
 
-    private long getNextId() {
-        return users.keySet().stream().mapToLong(id -> id).max().orElse(0) + 1;
-    }
-
     @Override
     public void checkUserExist(Long id) {
         if (!users.containsKey(id)) {
@@ -57,23 +107,104 @@ public class InMemoryUserStorage implements UserStorage {
         }
     }
 
+    @Override
+    public Set<Long> getExistingUserIds(Collection<Long> ids) {
+        return ids.stream()
+                .filter(users::containsKey)
+                .collect(Collectors.toSet());
+    }
+
     @Override
     public void addFriend(Long id, Long friendId) {
-        throw new RuntimeException("Метод не поддерживается");
+        User user = getStoredUser(id);
+        checkUserExist(friendId);
+        LongHashSet friendFollowers = followers.computeIfAbsent(friendId, key -> new LongHashSet());
+        synchronized (friendFollowers) {
+            friendFollowers.add(id);
+        }
+        synchronized (user.getFriends()) {
+            user.getFriends().add(friendId);
+        }
     }
 
     @Override
-    public void removeFriend(Long id, Long friendId) {
-        throw new RuntimeException("Метод не поддерживается");
+    public boolean removeFriend(Long id, Long friendId) {
+        User user = users.get(id);
+        if (user == null) {
+            return false;
+        }
+        synchronized (user.getFriends()) {
+            if (!user.getFriends().remove(friendId)) {
+                return false;
+            }
+        }
+        LongHashSet friendFollowers = followers.get(friendId);
+        synchronized (friendFollowers) {
+            friendFollowers.remove(id);
+        }
+        return true;
     }
 
     @Override
     public List<User> getFriends(Long id) {
-        throw new RuntimeException("Метод не поддерживается");
+        return getUsersByIds(getFriendIds(id));
     }
 
     @Override
     public List<User> getCommonFriends(Long id, Long otherId) {
-        throw new RuntimeException("Метод не поддерживается");
+        return getUsersByIds(SortedLongArrays.intersection(getFriendIds(id), getFriendIds(otherId)));
+    }
+
+    @Override
+    public List<User> getFriendSuggestions(Long id, int limit) {
+        long[] userFriends = getFriendIds(id);
+        Map<Long, Integer> mutualCounts = new HashMap<>();
+
+        for (long friendId : userFriends) {
+            for (long candidate : snapshot(followers.get(friendId))) {
+                if (candidate != id && !SortedLongArrays.contains(userFriends, candidate)) {
+                    mutualCounts.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+
+        return getUsersByIds(mutualCounts.entrySet().stream()
+                .sorted(SUGGESTION_ORDER)
+                .limit(limit)
+                .mapToLong(Map.Entry::getKey)
+                .toArray());
+    }
+
+    private long[] getFriendIds(Long id) {
+        User user = users.get(id);
+        return user == null ? SortedLongArrays.EMPTY : snapshot(user.getFriends());
+    }
+
+    private static long[] snapshot(LongHashSet ids) {
+        if (ids == null) {
+            return SortedLongArrays.EMPTY;
+        }
+        synchronized (ids) {
+            return ids.toArray();
+        }
+    }
+
+    private List<User> getUsersByIds(long[] ids) {
+        return Arrays.stream(ids)
+                .mapToObj(users::get)
+                .filter(Objects::nonNull)
+                .map(InMemoryUserStorage::copy)
+                .toList();
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setLogin(user.getLogin());
+        copy.setName(user.getName());
+        copy.setBirthday(user.getBirthday());
+        copy.setFriends(LongHashSet.of(snapshot(user.getFriends())));
+        return copy;
     }
 }
@@ -1,10 +1,15 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.mappers.UserMapper;
@@ -12,14 +17,26 @@ import ru.yandex.practicum.filmorate.storage.mappers.UserMapper;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
+@Profile("!memory")
 @RequiredArgsConstructor
+@Timed(value = "filmorate.storage", histogram = true)
 public class UserDbStorage implements UserStorage {
 
     private final JdbcTemplate jdbcTemplate;
 
+    private final FriendGraphIndex friendGraphIndex;
+
     @Override
     public User addUser(User user) {
         String sql = "INSERT INTO user_info (name, email, login, birthday) VALUES (?, ?, ?, ?)";
@@ -42,15 +59,17 @@ public class UserDbStorage implements UserStorage {
 
     @Override
     public User updateUser(User user) {
-        checkUserExist(user.getId());
-
         String sql = "UPDATE user_info SET name = ?, email = ?, login = ?, birthday = ? WHERE user_id = ?";
-        jdbcTemplate.update(sql,
+        int updated = jdbcTemplate.update(sql,
                 user.getName(),
                 user.getEmail(),
                 user.getLogin(),
                 user.getBirthday(),
                 user.getId());
+
+        if (updated == 0) {
+            throw new NotFoundException("Пользователь с ID " + user.getId() + " не найден.");
+        }
         return user;
     }
 
@@ -60,11 +79,27 @@ public class UserDbStorage implements UserStorage {
         return jdbcTemplate.query(sql, new UserMapper());
     }
 
+    @Override
+    public List<User> getUsersPage(long afterId, int limit) {
+        String sql = "SELECT * FROM user_info WHERE user_id > ? ORDER BY user_id LIMIT ?";
+        return jdbcTemplate.query(sql, new UserMapper(), afterId, limit);
+    }
+
+    @Override
+    public void streamAllUsers(Consumer<User> consumer) {
+        String sql = "SELECT * FROM user_info ORDER BY user_id";
+        UserMapper mapper = new UserMapper();
+        jdbcTemplate.query(sql, rs -> {
+            consumer.accept(mapper.mapRow(rs, rs.getRow()));
+        });
+    }
+
     @Override
     public User getUserById(Long id) {
-        checkUserExist(id);
         String sql = "SELECT * FROM user_info WHERE user_id = ?";
-        return jdbcTemplate.queryForObject(sql, new UserMapper(), id);
+        return jdbcTemplate.query(sql, new UserMapper(), id).stream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Пользователь с ID " + id + " не найден."));
     }
 
     @Override
@@ -76,6 +111,17 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
+    public Set<Long> getExistingUserIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        String sql = "SELECT user_id FROM user_info WHERE user_id IN (" + placeholders + ")";
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Long.class, ids.toArray()));
+    }
+
+    @Override
+    @Transactional
     public void addFriend(Long id, Long friendId) {
         Boolean existingStatus = getFriendshipStatus(friendId, id);
 
@@ -88,15 +134,13 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
-    public void removeFriend(Long id, Long friendId) {
-        Boolean existingStatus = getFriendshipStatus(friendId, id);
-
-        if (existingStatus != null && existingStatus) {
-            deleteFriendship(id, friendId);
-            updateFriendshipStatus(friendId, id, false);
-        } else {
-            deleteFriendship(id, friendId);
+    @Transactional
+    public boolean removeFriend(Long id, Long friendId) {
+        if (!deleteFriendship(id, friendId)) {
+            return false;
         }
+        updateFriendshipStatus(friendId, id, false);
+        return true;
     }
 
     private Boolean getFriendshipStatus(Long userId, Long friendId) {
@@ -110,8 +154,13 @@ public class UserDbStorage implements UserStorage {
     }
 
     private void addFriendship(Long userId, Long friendId, boolean status) {
-        String sql = "INSERT INTO friendship (user_id, friend_id, status) VALUES (?, ?, ?)";
-        jdbcTemplate.update(sql, userId, friendId, status);
+        String sql = "INSERT INTO friendship (user_id, friend_id, status) SELECT ?, ?, ? "
+                + "WHERE NOT EXISTS (SELECT 1 FROM friendship WHERE user_id = ? AND friend_id = ?)";
+        if (jdbcTemplate.update(sql, userId, friendId, status, userId, friendId) == 0) {
+            updateFriendshipStatus(userId, friendId, status);
+            return;
+        }
+        afterCommit(() -> friendGraphIndex.addFriend(userId, friendId));
     }
 
     private void updateFriendshipStatus(Long userId, Long friendId, boolean status) {
@@ -119,9 +168,29 @@ public class UserDbStorage implements UserStorage {
         jdbcTemplate.update(sql, status, userId, friendId);
     }
 
-    private void deleteFriendship(Long userId, Long friendId) {
+    private boolean deleteFriendship(Long userId, Long friendId) {
         String sql = "DELETE FROM friendship WHERE user_id = ? AND friend_id = ?";
-        jdbcTemplate.update(sql, userId, friendId);
+        if (jdbcTemplate.update(sql, userId, friendId) == 0) {
+            return false;
+        }
+        afterCommit(() -> friendGraphIndex.removeFriend(userId, friendId));
+        return true;
+    }
+
+    /**
+     * Граф дружбы меняется только после фиксации транзакции, чтобы при откате он не разошёлся с базой.
+     */
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
     }
 
     @Override
@@ -132,10 +201,45 @@ public class UserDbStorage implements UserStorage {
 
     @Override
     public List<User> getCommonFriends(Long id, Long otherId) {
+        if (friendGraphIndex.isReady()) {
+            return getUsersByIds(friendGraphIndex.getCommonFriendIds(id, otherId));
+        }
+
         String sql = "SELECT u.* FROM user_info u " +
                 "JOIN friendship f1 ON u.user_id = f1.friend_id " +
                 "JOIN friendship f2 ON u.user_id = f2.friend_id " +
                 "WHERE f1.user_id = ? AND f2.user_id = ?";
         return jdbcTemplate.query(sql, new UserMapper(), id, otherId);
     }
+
+    @Override
+    public List<User> getFriendSuggestions(Long id, int limit) {
+        if (friendGraphIndex.isReady()) {
+            return getUsersByIds(friendGraphIndex.getSuggestedFriendIds(id, limit));
+        }
+
+        String sql = "SELECT u.* FROM user_info u JOIN (" +
+                "SELECT f2.user_id AS candidate_id, COUNT(*) AS mutual FROM friendship f1 " +
+                "JOIN friendship f2 ON f1.friend_id = f2.friend_id " +
+                "WHERE f1.user_id = ? AND f2.user_id <> ? " +
+                "AND f2.user_id NOT IN (SELECT friend_id FROM friendship WHERE user_id = ?) " +
+                "GROUP BY f2.user_id) c ON u.user_id = c.candidate_id " +
+                "ORDER BY c.mutual DESC, u.user_id " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql, new UserMapper(), id, id, id, limit);
+    }
+
+    private List<User> getUsersByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        String sql = "SELECT * FROM user_info WHERE user_id IN (" + placeholders + ")";
+        Map<Long, User> users = jdbcTemplate.query(sql, new UserMapper(), ids.toArray()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
 }
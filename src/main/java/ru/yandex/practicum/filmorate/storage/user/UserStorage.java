@@ -4,6 +4,8 @@ import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface UserStorage {
     User addUser(User user);
@@ -12,15 +14,23 @@ public interface UserStorage {
 
     Collection<User> getAllUsers();
 
+    List<User> getUsersPage(long afterId, int limit);
+
+    void streamAllUsers(Consumer<User> consumer);
+
     User getUserById(Long id);
 
     void checkUserExist(Long id);
 
+    Set<Long> getExistingUserIds(Collection<Long> ids);
+
     void addFriend(Long id, Long friendId);
 
-    void removeFriend(Long id, Long friendId);
+    boolean removeFriend(Long id, Long friendId);
 
     List<User> getFriends(Long id);
 
     List<User> getCommonFriends(Long id, Long otherId);
+
+    List<User> getFriendSuggestions(Long id, int limit);
 }
@@ -0,0 +1,136 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import(TestSupport.class)
+public class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestSupport testSupport;
+
+    @AfterEach
+    void cleanDb() {
+        testSupport.reset();
+    }
+
+    @Test
+    void shouldAnswerNotModifiedForUnchangedFilm() throws Exception {
+        testSupport.createFilm("Movie");
+
+        String eTag = mockMvc.perform(get("/films/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotNull(eTag);
+
+        mockMvc.perform(get("/films/{id}", 1L).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("X-SQL-Statement-Count", "0"))
+                .andExpect(content().string(""));
+
+        Film update = new Film();
+        update.setId(1L);
+        update.setName("Renamed");
+        update.setDuration(90);
+        mockMvc.perform(put("/films")
+                        .content(objectMapper.writeValueAsString(update))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        String newETag = mockMvc.perform(get("/films/{id}", 1L).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotEquals(eTag, newETag);
+    }
+
+    @Test
+    void shouldChangePopularFilmsVersionOnLike() throws Exception {
+        testSupport.createFilm("Movie");
+        testSupport.createUser("user1");
+
+        String eTag = mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", 1L, 1L)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldChangeFriendsVersionOnFriendshipAndProfileUpdates() throws Exception {
+        testSupport.createUser("user1");
+        testSupport.createUser("user2");
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", 1L, 2L)).andExpect(status().isOk());
+
+        String eTag = mockMvc.perform(get("/users/{id}/friends", 1L))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/users/{id}/friends", 1L).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        // без Last-Modified у If-Modified-Since не с чем сравнить, и список отдаётся целиком
+        mockMvc.perform(get("/users/{id}/friends", 1L)
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, "Wed, 01 Jan 2099 00:00:00 GMT"))
+                .andExpect(status().isOk());
+
+        User friend = new User();
+        friend.setId(2L);
+        friend.setName("Renamed");
+        friend.setEmail("user2@test.com");
+        friend.setLogin("user2");
+        friend.setBirthday(LocalDate.of(1990, 1, 1));
+        mockMvc.perform(put("/users")
+                        .content(objectMapper.writeValueAsString(friend))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/{id}/friends", 1L).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldLetClientsCacheReferenceData() throws Exception {
+        mockMvc.perform(get("/genres"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=3600, public"));
+        mockMvc.perform(get("/mpa/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=3600, public"));
+        mockMvc.perform(get("/mpa/{id}", 999L))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist(HttpHeaders.CACHE_CONTROL));
+    }
+}
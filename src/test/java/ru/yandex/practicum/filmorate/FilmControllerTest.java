@@ -2,11 +2,13 @@ package ru.yandex.practicum.filmorate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
@@ -15,17 +17,21 @@ import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.MpaRating;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.LikeCountRepairJob;
 
 import java.time.LocalDate;
 import java.util.List;
 
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import(TestSupport.class)
 public class FilmControllerTest {
 
     @Autowired
@@ -37,6 +43,12 @@ public class FilmControllerTest {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private LikeCountRepairJob likeCountRepairJob;
+
+    @Autowired
+    private TestSupport testSupport;
+
 //    @BeforeEach
 //    void cleanDb() {
 //        jdbcTemplate.execute("DELETE FROM film_genre;");
@@ -46,12 +58,7 @@ public class FilmControllerTest {
 
     @AfterEach
     void cleanDbAfterAll() {
-        jdbcTemplate.execute("DELETE FROM film_genre;");
-        jdbcTemplate.execute("DELETE FROM film_like;");
-        jdbcTemplate.execute("DELETE FROM film;");
-        jdbcTemplate.execute("ALTER TABLE film ALTER COLUMN film_id RESTART WITH 1;");
-        jdbcTemplate.execute("DELETE FROM user_info;");
-        jdbcTemplate.execute("ALTER TABLE user_info ALTER COLUMN user_id RESTART WITH 1;");
+        testSupport.reset();
     }
 
     @Test
@@ -406,4 +413,281 @@ public class FilmControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isEmpty());
     }
+
+    @Test
+    void shouldKeepLikeCountInSyncWithLikes() throws Exception {
+        long userId = testSupport.createUser("user1");
+        long filmId = testSupport.createFilm("Movie");
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", filmId, userId))
+                .andExpect(status().isOk());
+
+        String countSql = "SELECT like_count FROM film WHERE film_id = ?";
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject(countSql, Integer.class, filmId));
+
+        jdbcTemplate.update("UPDATE film SET like_count = 0 WHERE film_id = ?", filmId);
+        mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+
+        Assertions.assertEquals(1, likeCountRepairJob.repair());
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject(countSql, Integer.class, filmId));
+        mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(filmId));
+
+        mockMvc.perform(delete("/films/{id}/like/{userId}", filmId, userId))
+                .andExpect(status().isOk());
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject(countSql, Integer.class, filmId));
+    }
+
+    @Test
+    void shouldFilterPopularFilmsByGenreAndYear() throws Exception {
+        long userId = testSupport.createUser("user1");
+
+        long drama2001 = createFilm(LocalDate.of(2001, 1, 1), 2L);
+        long comedy2001 = createFilm(LocalDate.of(2001, 6, 1), 1L);
+        long comedy2010 = createFilm(LocalDate.of(2010, 1, 1), 1L);
+        for (long filmId : List.of(drama2001, comedy2001, comedy2010)) {
+            mockMvc.perform(put("/films/{id}/like/{userId}", filmId, userId))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/films/popular").param("genreId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(comedy2001))
+                .andExpect(jsonPath("$[0].genres[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(comedy2010));
+        mockMvc.perform(get("/films/popular").param("year", "2001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(drama2001))
+                .andExpect(jsonPath("$[1].id").value(comedy2001));
+        mockMvc.perform(get("/films/popular").param("genreId", "1").param("year", "2010"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(comedy2010));
+        mockMvc.perform(get("/films/popular").param("genreId", "1").param("window", "24h"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRejectPopularFilmsCountOutOfRange() throws Exception {
+        mockMvc.perform(get("/films/popular").param("count", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films/popular").param("count", "1001"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films/popular").param("count", "-1").param("window", "24h"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private long createFilm(LocalDate releaseDate, Long genreId) throws Exception {
+        Film film = TestSupport.newFilm("Movie");
+        film.setReleaseDate(releaseDate);
+        film.setGenres(List.of(new Genre(genreId, null)));
+        return testSupport.createFilm(film);
+    }
+
+    @Test
+    void shouldReturnGenresForFilmLists() throws Exception {
+        long userId = testSupport.createUser("user1");
+
+        Film first = TestSupport.newFilm("First");
+        first.setGenres(List.of(new Genre(2L, "Драма"), new Genre(1L, "Комедия")));
+        testSupport.createFilm(first);
+
+        Film second = TestSupport.newFilm("Second");
+        second.setGenres(List.of(new Genre(3L, "Мультфильм")));
+        testSupport.createFilm(second);
+
+        mockMvc.perform(get("/films"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].genres.length()").value(2))
+                .andExpect(jsonPath("$[0].genres[0].id").value(1))
+                .andExpect(jsonPath("$[0].genres[1].id").value(2))
+                .andExpect(jsonPath("$[1].genres.length()").value(1))
+                .andExpect(jsonPath("$[1].genres[0].id").value(3));
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", 2L, userId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[0].genres[0].name").value("Мультфильм"));
+    }
+
+    @Test
+    void shouldPageAndStreamFilms() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            Film film = TestSupport.newFilm("Movie" + i);
+            if (i == 2) {
+                film.setGenres(List.of(new Genre(1L, "Комедия"), new Genre(2L, "Драма")));
+            }
+            testSupport.createFilm(film);
+        }
+
+        mockMvc.perform(get("/films").param("after", "1").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[0].genres.length()").value(2));
+        mockMvc.perform(get("/films").param("limit", "1001"))
+                .andExpect(status().isBadRequest());
+
+        MvcResult streamResult = mockMvc.perform(get("/films").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(streamResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<Film> films = body.lines()
+                .map(line -> {
+                    try {
+                        return objectMapper.readValue(line, Film.class);
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                })
+                .toList();
+        Assertions.assertEquals(3, films.size());
+        Assertions.assertEquals(2, films.get(1).getGenres().size());
+        Assertions.assertEquals(0, films.get(2).getGenres().size());
+        Assertions.assertEquals("G", films.get(0).getMpa().getName());
+    }
+
+    @Test
+    void shouldReturnNotFoundForLikeWithUnknownUserOrFilm() throws Exception {
+        long userId = testSupport.createUser("user1");
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", 999L, userId))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errorMessage").value("Фильм с ID 999 не найден."));
+
+        mockMvc.perform(delete("/films/{id}/like/{userId}", 1L, 999L))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errorMessage").value("Пользователь с ID 999 не найден."));
+
+        long filmId = testSupport.createFilm("Movie");
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", filmId, userId))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", filmId, userId))
+                .andExpect(status().isOk());
+
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT like_count FROM film WHERE film_id = ?", Integer.class, filmId));
+    }
+
+    @Test
+    void shouldImportFilmsAndReportFailedRows() throws Exception {
+        String body = "["
+                + "{\"name\":\"First\",\"description\":\"d\",\"releaseDate\":\"2000-01-01\",\"duration\":90,"
+                + "\"mpa\":{\"id\":1},\"genres\":[{\"id\":1},{\"id\":2},{\"id\":1}]},"
+                + "{\"name\":\"\",\"description\":\"d\",\"releaseDate\":\"2000-01-01\",\"duration\":90,"
+                + "\"mpa\":{\"id\":1}},"
+                + "{\"name\":\"Third\",\"description\":\"d\",\"releaseDate\":\"2000-01-01\",\"duration\":90,"
+                + "\"mpa\":{\"id\":99}},"
+                + "{\"name\":\"Fourth\",\"description\":\"d\",\"releaseDate\":\"2000-01-01\",\"duration\":90,"
+                + "\"mpa\":{\"id\":2}}"
+                + "]";
+
+        mockMvc.perform(post("/films/bulk")
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[0].errorMessage").value("name: Название не может быть пустым."))
+                .andExpect(jsonPath("$.errors[1].index").value(2))
+                .andExpect(jsonPath("$.errors[1].errorMessage").value("Рейтинг с ID 99 не найден."));
+
+        String ndjson = "{\"name\":\"Fifth\",\"description\":\"d\",\"releaseDate\":\"2000-01-01\",\"duration\":90,"
+                + "\"mpa\":{\"id\":1},\"genres\":[{\"id\":3}]}\n"
+                + "{\"name\":\"Sixth\",\"description\":\"d\",\"releaseDate\":\"2000-01-01\",\"duration\":90,"
+                + "\"mpa\":{\"id\":1}}\n";
+
+        mockMvc.perform(post("/films/bulk")
+                        .content(ndjson)
+                        .contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(0));
+
+        mockMvc.perform(get("/films"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4))
+                .andExpect(jsonPath("$[0].name").value("First"))
+                .andExpect(jsonPath("$[0].genres.length()").value(2))
+                .andExpect(jsonPath("$[1].mpa.name").value("PG"))
+                .andExpect(jsonPath("$[2].genres[0].id").value(3));
+    }
+
+    @Test
+    void shouldApplyLikeEventsInBatch() throws Exception {
+        for (int i = 1; i <= 2; i++) {
+            testSupport.createUser("user" + i);
+            testSupport.createFilm("Movie" + i);
+        }
+
+        String events = "{\"filmId\":1,\"userId\":1,\"op\":\"LIKE\"}\n"
+                + "{\"filmId\":1,\"userId\":2,\"op\":\"LIKE\"}\n"
+                + "{\"filmId\":1,\"userId\":1,\"op\":\"LIKE\"}\n"
+                + "{\"filmId\":2,\"userId\":1,\"op\":\"LIKE\"}\n"
+                + "{\"filmId\":2,\"userId\":1,\"op\":\"UNLIKE\"}\n"
+                + "{\"filmId\":99,\"userId\":1,\"op\":\"LIKE\"}\n"
+                + "{\"filmId\":2,\"userId\":2,\"op\":\"LIKE\"}\n";
+
+        mockMvc.perform(post("/films/likes/bulk")
+                        .content(events)
+                        .contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(7))
+                .andExpect(jsonPath("$.duplicates").value(2))
+                .andExpect(jsonPath("$.liked").value(3))
+                .andExpect(jsonPath("$.unliked").value(0))
+                .andExpect(jsonPath("$.unchanged").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].index").value(5));
+
+        mockMvc.perform(post("/films/likes/bulk")
+                        .content("[{\"filmId\":1,\"userId\":2,\"op\":\"UNLIKE\"}]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.unliked").value(1));
+
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT like_count FROM film WHERE film_id = 1", Integer.class));
+        Assertions.assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM film_like", Integer.class));
+    }
+
+    @Test
+    void shouldReportMalformedLikeEventAndKeepProcessedRows() throws Exception {
+        long userId = testSupport.createUser("user");
+        long filmId = testSupport.createFilm("Movie");
+
+        String events = "{\"filmId\":" + filmId + ",\"userId\":" + userId + ",\"op\":\"LIKE\"}\n"
+                + "{\"filmId\":" + filmId + ",\"op\":\"LIKE\"}\n"
+                + "{\"filmId\":" + filmId + ",\"userId\":" + userId + ",\"op\":\"LOVE\"}\n"
+                + "{\"filmId\":" + filmId + ",\"userId\":" + userId + ",\"op\":\"UNLIKE\"}\n";
+
+        mockMvc.perform(post("/films/likes/bulk")
+                        .content(events)
+                        .contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(2))
+                .andExpect(jsonPath("$.liked").value(1))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[1].index").value(2))
+                .andExpect(jsonPath("$.errors[1].errorMessage").value(startsWith("Некорректный JSON")));
+
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT like_count FROM film WHERE film_id = ?", Integer.class, filmId));
+    }
 }
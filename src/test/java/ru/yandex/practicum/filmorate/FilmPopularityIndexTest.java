@@ -0,0 +1,173 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "filmorate.popular-films.source=index")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import(TestSupport.class)
+public class FilmPopularityIndexTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FilmPopularityIndex filmPopularityIndex;
+
+    @Autowired
+    private TestSupport testSupport;
+
+    @AfterEach
+    void cleanDb() {
+        testSupport.reset();
+    }
+
+    @Test
+    void shouldOrderPopularFilmsByLikesFromIndex() throws Exception {
+        long firstUser = testSupport.createUser("first");
+        long secondUser = testSupport.createUser("second");
+        long firstFilm = testSupport.createFilm("First");
+        long secondFilm = testSupport.createFilm("Second");
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", firstFilm, firstUser))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", secondFilm, firstUser))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", secondFilm, secondUser))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(secondFilm))
+                .andExpect(jsonPath("$[0].mpa.id").value(1))
+                .andExpect(jsonPath("$[1].id").value(firstFilm));
+
+        mockMvc.perform(get("/films/popular").param("count", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(secondFilm));
+    }
+
+    @Test
+    void shouldDropFilmFromIndexWhenLastLikeRemoved() throws Exception {
+        long userId = testSupport.createUser("user");
+        long filmId = testSupport.createFilm("Movie");
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", filmId, userId))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/films/{id}/like/{userId}", filmId, userId))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/films/{id}/like/{userId}", filmId, userId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void shouldRebuildIndexFromFilmLikeTable() throws Exception {
+        long userId = testSupport.createUser("user");
+        long filmId = testSupport.createFilm("Movie");
+        jdbcTemplate.update("INSERT INTO film_like (film_id, user_id) VALUES (?, ?)", filmId, userId);
+
+        mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+
+        filmPopularityIndex.rebuild();
+
+        mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(filmId));
+    }
+
+    @Test
+    void shouldFilterPopularFilmsByGenreAndYearFromIndex() throws Exception {
+        long first = createFilm("First", LocalDate.of(2001, 5, 1), 1L, 2L);
+        long second = createFilm("Second", LocalDate.of(2001, 9, 1), 2L);
+        long third = createFilm("Third", LocalDate.of(2005, 1, 1), 1L);
+        like(first, 2);
+        like(second, 1);
+        like(third, 3);
+
+        mockMvc.perform(get("/films/popular").param("genreId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(third))
+                .andExpect(jsonPath("$[1].id").value(first));
+        mockMvc.perform(get("/films/popular").param("year", "2001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(first))
+                .andExpect(jsonPath("$[1].id").value(second));
+        mockMvc.perform(get("/films/popular").param("genreId", "1").param("year", "2001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(first));
+        mockMvc.perform(get("/films/popular").param("genreId", "999"))
+                .andExpect(status().isNotFound());
+
+        Film moved = new Film();
+        moved.setId(first);
+        moved.setReleaseDate(LocalDate.of(2005, 2, 1));
+        moved.setDuration(120);
+        mockMvc.perform(put("/films")
+                        .content(objectMapper.writeValueAsString(moved))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/popular").param("year", "2001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(second));
+        mockMvc.perform(get("/films/popular").param("year", "2005"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(third))
+                .andExpect(jsonPath("$[1].id").value(first));
+    }
+
+    private void like(long filmId, int likes) throws Exception {
+        for (int i = 0; i < likes; i++) {
+            long userId = testSupport.createUser("film" + filmId + "fan" + i);
+            mockMvc.perform(put("/films/{id}/like/{userId}", filmId, userId))
+                    .andExpect(status().isOk());
+        }
+    }
+
+
+
+    private long createFilm(String name, LocalDate releaseDate, Long... genreIds) throws Exception {
+        Film film = TestSupport.newFilm(name);
+        film.setReleaseDate(releaseDate);
+        film.setGenres(Arrays.stream(genreIds).map(id -> new Genre(id, null)).toList());
+        return testSupport.createFilm(film);
+    }
+}
@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import(TestSupport.class)
+public class FilmSearchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestSupport testSupport;
+
+    @AfterEach
+    void cleanDb() {
+        testSupport.reset();
+    }
+
+    @Test
+    void shouldFindFilmsByPrefixesAndRankByLikes() throws Exception {
+        long karamazov = createFilm("Братья Карамазовы", "Экранизация романа Достоевского");
+        long brother = createFilm("Брат", "Криминальная драма о Петербурге");
+        long trees = createFilm("Ёлки", "Новогодняя комедия");
+        long user = testSupport.createUser("user1");
+        mockMvc.perform(put("/films/{id}/like/{userId}", brother, user))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/search").param("q", "брат"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(brother))
+                .andExpect(jsonPath("$[1].id").value(karamazov));
+        mockMvc.perform(get("/films/search").param("q", "БРАТ, карам"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(karamazov));
+        mockMvc.perform(get("/films/search").param("q", "достоевск"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(karamazov));
+        mockMvc.perform(get("/films/search").param("q", "елки"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(trees));
+        mockMvc.perform(get("/films/search").param("q", "брат").param("count", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(brother));
+        mockMvc.perform(get("/films/search").param("q", "брат мультфильм"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void shouldReindexUpdatedFilm() throws Exception {
+        long filmId = createFilm("Сталкер", "Фильм Тарковского");
+
+        Film update = new Film();
+        update.setId(filmId);
+        update.setName("Солярис");
+        update.setDuration(120);
+        mockMvc.perform(put("/films")
+                        .content(objectMapper.writeValueAsString(update))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/search").param("q", "сталкер"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/films/search").param("q", "солярис тарковск"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(filmId));
+    }
+
+    @Test
+    void shouldRejectQueryWithoutWords() throws Exception {
+        mockMvc.perform(get("/films/search").param("q", " ,.!"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films/search"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRejectCountOutOfRange() throws Exception {
+        mockMvc.perform(get("/films/search").param("q", "брат").param("count", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films/search").param("q", "брат").param("count", "1001"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private long createFilm(String name, String description) throws Exception {
+        Film film = TestSupport.newFilm(name);
+        film.setDescription(description);
+        return testSupport.createFilm(film);
+    }
+}
@@ -0,0 +1,166 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.storage.film.FilmTrendingIndex;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import(TestSupport.class)
+public class FilmTrendingIndexTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestSupport testSupport;
+
+    @AfterEach
+    void cleanDb() {
+        testSupport.reset();
+    }
+
+    @Test
+    void shouldRankOnlyLikesInsideWindow() throws Exception {
+        long firstUser = testSupport.createUser("first");
+        long secondUser = testSupport.createUser("second");
+        long oldHit = testSupport.createFilm("Old hit");
+        long newHit = testSupport.createFilm("New hit");
+
+        Timestamp twoDaysAgo = Timestamp.from(Instant.now().minus(Duration.ofDays(2)));
+        jdbcTemplate.update("INSERT INTO film_like (film_id, user_id, liked_at) VALUES (?, ?, ?)",
+                oldHit, firstUser, twoDaysAgo);
+        jdbcTemplate.update("INSERT INTO film_like (film_id, user_id, liked_at) VALUES (?, ?, ?)",
+                oldHit, secondUser, twoDaysAgo);
+        jdbcTemplate.update("UPDATE film SET like_count = 2 WHERE film_id = ?", oldHit);
+        testSupport.rebuildIndexes();
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", newHit, firstUser))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/popular").param("window", "24h"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(newHit));
+        mockMvc.perform(get("/films/popular").param("window", "7d"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(oldHit))
+                .andExpect(jsonPath("$[1].id").value(newHit));
+        mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(oldHit));
+    }
+
+    @Test
+    void shouldRejectUnsupportedWindow() throws Exception {
+        mockMvc.perform(get("/films/popular").param("window", "5h"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films/popular").param("window", "yesterday"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldSlideWindowAsBucketsExpire() {
+        MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        FilmTrendingIndex index = new FilmTrendingIndex(null, clock, Duration.ofMinutes(10), List.of("1h", "24h"));
+
+        index.likeAdded(1L, 1L);
+        index.likeAdded(1L, 2L);
+        index.likeAdded(2L, 1L);
+        Assertions.assertEquals(List.of(1L, 2L), index.getTopFilmIds("1h", 10));
+
+        clock.advance(Duration.ofMinutes(30));
+        index.likeAdded(2L, 2L);
+        index.likeAdded(2L, 3L);
+        Assertions.assertEquals(List.of(2L, 1L), index.getTopFilmIds("1h", 10));
+
+        clock.advance(Duration.ofMinutes(30));
+        Assertions.assertEquals(List.of(2L), index.getTopFilmIds("1h", 10));
+        Assertions.assertEquals(List.of(2L, 1L), index.getTopFilmIds("24h", 10));
+
+        index.likeRemoved(2L, 3L);
+        Assertions.assertEquals(List.of(1L, 2L), index.getTopFilmIds("24h", 10));
+        Assertions.assertEquals(List.of(1L), index.getTopFilmIds("24h", 1));
+
+        clock.advance(Duration.ofDays(8));
+        Assertions.assertEquals(List.of(), index.getTopFilmIds("24h", 10));
+    }
+
+    @Test
+    void shouldIgnoreUnlikesOfLikesOutsideRing() {
+        MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        FilmTrendingIndex index = new FilmTrendingIndex(null, clock, Duration.ofMinutes(10), List.of("1h", "24h"));
+
+        index.likeAdded(1L, 1L);
+        clock.advance(Duration.ofDays(2));
+        index.likeAdded(1L, 2L);
+        index.likeAdded(2L, 3L);
+
+        // лайк юзера 1 уже выпал из кольца, юзер 4 фильм не лайкал
+        index.likeRemoved(1L, 1L);
+        index.likeRemoved(2L, 4L);
+        Assertions.assertEquals(List.of(1L, 2L), index.getTopFilmIds("1h", 10));
+
+        // снятый лайк вычитается из своего ведра: в часовом окне его уже нет
+        clock.advance(Duration.ofHours(2));
+        index.likeAdded(1L, 5L);
+        index.likeRemoved(2L, 3L);
+        Assertions.assertEquals(List.of(1L), index.getTopFilmIds("1h", 10));
+        Assertions.assertEquals(List.of(1L), index.getTopFilmIds("24h", 10));
+        index.likeRemoved(1L, 2L);
+        Assertions.assertEquals(List.of(1L), index.getTopFilmIds("1h", 10));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
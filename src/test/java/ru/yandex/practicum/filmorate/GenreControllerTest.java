@@ -1,11 +1,15 @@
 package ru.yandex.practicum.filmorate;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceCacheRefreshJob;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -19,6 +23,15 @@ public class GenreControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private GenreDbStorage genreDbStorage;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReferenceCacheRefreshJob referenceCacheRefreshJob;
+
     @Test
     void shouldGetAllGenres() throws Exception {
         mockMvc.perform(get("/genres"))
@@ -40,4 +53,41 @@ public class GenreControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.errorMessage").value("Жанр с ID 999 не найден."));
     }
+
+    @Test
+    void shouldServeGenresFromCache() throws Exception {
+        long hits = genreDbStorage.getCache().getHits();
+        long misses = genreDbStorage.getCache().getMisses();
+
+        mockMvc.perform(get("/genres/{id}", 2L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Драма"));
+        mockMvc.perform(get("/genres/{id}", 2L))
+                .andExpect(status().isOk());
+
+        Assertions.assertEquals(hits + 2, genreDbStorage.getCache().getHits());
+        Assertions.assertEquals(misses, genreDbStorage.getCache().getMisses());
+    }
+
+    @Test
+    void shouldAnswerMissesFromCacheUntilRefreshed() throws Exception {
+        long misses = genreDbStorage.getCache().getMisses();
+        jdbcTemplate.update("INSERT INTO genre (genre_id, name) VALUES (100, 'Фантастика')");
+        try {
+            mockMvc.perform(get("/genres/{id}", 100L))
+                    .andExpect(status().isNotFound());
+            Assertions.assertEquals(misses + 1, genreDbStorage.getCache().getMisses());
+
+            referenceCacheRefreshJob.refresh();
+            mockMvc.perform(get("/genres/{id}", 100L))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.name").value("Фантастика"));
+        } finally {
+            jdbcTemplate.update("DELETE FROM genre WHERE genre_id = 100");
+            referenceCacheRefreshJob.refresh();
+        }
+
+        mockMvc.perform(get("/genres/{id}", 100L))
+                .andExpect(status().isNotFound());
+    }
 }
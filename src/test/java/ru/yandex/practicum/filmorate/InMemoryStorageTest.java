@@ -0,0 +1,160 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("memory")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import(TestSupport.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class InMemoryStorageTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Autowired
+    private UserStorage userStorage;
+
+    @Autowired
+    private TestSupport testSupport;
+
+    @Test
+    void shouldUseInMemoryStoragesInMemoryProfile() {
+        Assertions.assertInstanceOf(InMemoryFilmStorage.class, filmStorage);
+        Assertions.assertInstanceOf(InMemoryUserStorage.class, userStorage);
+    }
+
+    @Test
+    void shouldLikeAndRankFilmsWithoutDatabase() throws Exception {
+        long firstUser = testSupport.createUser("first");
+        long secondUser = testSupport.createUser("second");
+        long firstFilm = testSupport.createFilm("First");
+        long secondFilm = testSupport.createFilm("Second");
+
+        mockMvc.perform(get("/films/{id}", firstFilm))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.mpa.name").value("G"));
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", firstFilm, firstUser)).andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", secondFilm, firstUser)).andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", secondFilm, secondUser)).andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", secondFilm, secondUser)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(secondFilm))
+                .andExpect(jsonPath("$[1].id").value(firstFilm));
+
+        mockMvc.perform(delete("/films/{id}/like/{userId}", secondFilm, firstUser)).andExpect(status().isOk());
+        mockMvc.perform(delete("/films/{id}/like/{userId}", secondFilm, secondUser)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(firstFilm));
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", firstFilm, 999L)).andExpect(status().isNotFound());
+        mockMvc.perform(delete("/films/{id}/like/{userId}", 999L, firstUser)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldKeepFriendshipsWithoutDatabase() throws Exception {
+        long first = testSupport.createUser("first");
+        long second = testSupport.createUser("second");
+        long third = testSupport.createUser("third");
+        long fourth = testSupport.createUser("fourth");
+
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", first, third)).andExpect(status().isOk());
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", first, second)).andExpect(status().isOk());
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", fourth, second)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/{id}/friends", first))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(second))
+                .andExpect(jsonPath("$[1].id").value(third));
+
+        mockMvc.perform(get("/users/{id}/friends/common/{otherId}", first, fourth))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(second));
+
+        mockMvc.perform(get("/users/{id}/friends/suggestions", first))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(fourth));
+
+        mockMvc.perform(delete("/users/{id}/friends/{friendId}", first, second)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/{id}/friends/common/{otherId}", first, fourth))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", first, 999L)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldAssignUniqueIdsUnderConcurrentInserts() {
+        List<Long> ids = IntStream.range(0, 1000).parallel()
+                .mapToObj(i -> filmStorage.addFilm(TestSupport.newFilm("Film" + i)).getId())
+                .toList();
+
+        Assertions.assertEquals(1000, ids.stream().distinct().count());
+        Assertions.assertEquals(1000, filmStorage.getAllFilms().size());
+        Assertions.assertEquals(List.of(11L, 12L, 13L),
+                filmStorage.getFilmsPage(10, 3).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    void shouldKeepStoredEntitiesUnchangedUntilUpdateSucceeds() {
+        Film film = filmStorage.addFilm(TestSupport.newFilm("Original"));
+        Film changed = filmStorage.getFilmById(film.getId());
+        changed.setName("Changed");
+        changed.setGenres(List.of(new Genre(999L, null)));
+
+        Assertions.assertEquals("Original", filmStorage.getFilmById(film.getId()).getName());
+        Assertions.assertThrows(NotFoundException.class, () -> filmStorage.updateFilm(changed));
+        Film stored = filmStorage.getFilmById(film.getId());
+        Assertions.assertEquals("Original", stored.getName());
+        Assertions.assertNull(stored.getGenres());
+
+        User user = new User();
+        user.setLogin("original");
+        user.setEmail("original@test.com");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        long userId = userStorage.addUser(user).getId();
+        userStorage.getUserById(userId).setLogin("changed");
+
+        Assertions.assertEquals("original", userStorage.getUserById(userId).getLogin());
+    }
+}
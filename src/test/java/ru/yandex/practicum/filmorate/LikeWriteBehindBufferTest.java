@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindBuffer;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "filmorate.likes.write-behind.enabled=true",
+        "filmorate.likes.write-behind.flush-interval=PT1H"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import(TestSupport.class)
+public class LikeWriteBehindBufferTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LikeWriteBehindBuffer likeWriteBehindBuffer;
+
+    @Autowired
+    private TestSupport testSupport;
+
+    @AfterEach
+    void cleanDb() {
+        testSupport.reset();
+    }
+
+    @Test
+    void shouldShowBufferedLikesBeforeFlush() throws Exception {
+        long userId = testSupport.createUser("user");
+        long filmId = testSupport.createFilm("Movie");
+
+        String eTag = mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", filmId, userId))
+                .andExpect(status().isOk());
+
+        Assertions.assertEquals(0, countLikes());
+        mockMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(filmId));
+
+        Assertions.assertEquals(1, likeWriteBehindBuffer.flush());
+        Assertions.assertEquals(1, countLikes());
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT like_count FROM film WHERE film_id = ?", Integer.class, filmId));
+        mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(filmId));
+
+        mockMvc.perform(delete("/films/{id}/like/{userId}", filmId, userId))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+
+        likeWriteBehindBuffer.flush();
+        Assertions.assertEquals(0, countLikes());
+    }
+
+    @Test
+    void shouldCoalesceBufferedOperations() throws Exception {
+        long userId = testSupport.createUser("user");
+        long firstFilm = testSupport.createFilm("First");
+        long secondFilm = testSupport.createFilm("Second");
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", firstFilm, userId))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/films/{id}/like/{userId}", firstFilm, userId))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", secondFilm, userId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", 999L, userId))
+                .andExpect(status().isNotFound());
+
+        Assertions.assertEquals(2, likeWriteBehindBuffer.flush());
+        Assertions.assertEquals(1, countLikes());
+        mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(secondFilm));
+    }
+
+    private int countLikes() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM film_like", Integer.class);
+    }
+
+
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.LongHashSet;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class LongHashSetTest {
+
+    @Test
+    void shouldBehaveLikeHashSetUnderRandomOperations() {
+        Random random = new Random(42);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                Assertions.assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                Assertions.assertEquals(expected.add(value), set.add(value));
+            }
+            Assertions.assertEquals(expected.size(), set.size());
+        }
+
+        for (long value = 0; value < 2_000; value++) {
+            Assertions.assertEquals(expected.contains(value), set.contains(value));
+        }
+        Assertions.assertArrayEquals(expected.stream().mapToLong(Long::longValue).sorted().toArray(), set.toArray());
+    }
+
+    @Test
+    void shouldKeepZeroAndNegativeIds() {
+        LongHashSet set = LongHashSet.of(0, -5, 7, 7);
+
+        Assertions.assertEquals(3, set.size());
+        Assertions.assertTrue(set.contains(0));
+        Assertions.assertArrayEquals(new long[]{-5, 0, 7}, set.toArray());
+        Assertions.assertTrue(set.remove(0));
+        Assertions.assertFalse(set.contains(0));
+        Assertions.assertEquals(2, set.size());
+    }
+
+    @Test
+    void shouldCompareByContent() {
+        LongHashSet first = LongHashSet.of(1, 2, 3);
+        LongHashSet second = LongHashSet.of(3, 2, 1, 4);
+        second.remove(4);
+
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals(first.hashCode(), second.hashCode());
+        Assertions.assertTrue(new LongHashSet().isEmpty());
+        Assertions.assertEquals(new LongHashSet(), new LongHashSet());
+    }
+}
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class MetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void shouldExposeStorageTimersInPrometheusFormat() throws Exception {
+        mockMvc.perform(get("/films")).andExpect(status().isOk());
+        mockMvc.perform(get("/genres/{id}", 1L)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "filmorate_storage_seconds_bucket{class=\"ru.yandex.practicum.filmorate.storage.film.FilmDbStorage\"")))
+                .andExpect(content().string(containsString("method=\"getAllFilms\"")))
+                .andExpect(content().string(containsString("filmorate_service_seconds_count{")))
+                .andExpect(content().string(containsString(
+                        "filmorate_reference_cache_requests_total{cache=\"genre\",result=\"hit\",}")))
+                .andExpect(content().string(containsString(
+                        "filmorate_singleflight_calls_total{name=\"film\",result=\"coalesced\",}")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")));
+    }
+}
@@ -0,0 +1,270 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeEvent;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.PopularFilmsFilter;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Планы всех выражений, которые хранилища выполняют на запросах к отдельным фильмам и юзерам.
+ * Выражения собираются статистикой запросов H2, пока вызываются методы хранилищ на заполненной базе,
+ * затем для каждого строится EXPLAIN. Полный обход большой таблицы – ошибка: значит, запросу не хватает
+ * индекса. Методы, которые читают таблицу целиком (getAllFilms, streamAllUsers и т.п.), здесь не вызываются,
+ * справочники genre и mpa_rating читаются целиком в кэш и не проверяются.
+ */
+@SpringBootTest(properties = "filmorate.friends.index.enabled=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import(TestSupport.class)
+public class QueryPlanTest {
+
+    private static final Set<String> LARGE_TABLES = Set.of("FILM", "USER_INFO", "FILM_LIKE", "FILM_GENRE",
+            "FRIENDSHIP");
+
+    private static final Pattern TABLE_SCAN = Pattern.compile("PUBLIC\\.(\\w+)\\.tableScan");
+
+    /**
+     * Комментарий плана с индексом и условиями по нему, например «PUBLIC.PRIMARY_KEY_B4: USER_ID = ?1».
+     */
+    private static final Pattern INDEX_ACCESS = Pattern.compile("/\\* PUBLIC\\.(\\w+)(?:: ([^*]+))? \\*/");
+
+    private static final Pattern EXPLAINABLE = Pattern.compile("(SELECT|INSERT|UPDATE|DELETE|MERGE)\\b");
+
+    private static final int ROWS = 2000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Autowired
+    private UserStorage userStorage;
+
+    @Autowired
+    private GenreDbStorage genreStorage;
+
+    @Autowired
+    private MpaDbStorage mpaStorage;
+
+    @Autowired
+    private TestSupport testSupport;
+
+    private long firstFilmId;
+
+    private long firstUserId;
+
+    @BeforeEach
+    void seedDb() {
+        jdbcTemplate.update("INSERT INTO user_info (name, email, login, birthday) "
+                + "SELECT 'user' || X, 'user' || X || '@test.com', 'user' || X, DATE '1990-01-01' "
+                + "FROM SYSTEM_RANGE(1, ?)", ROWS);
+        jdbcTemplate.update("INSERT INTO film (name, description, release_date, duration, rating_id) "
+                + "SELECT 'film' || X, 'description', DATEADD(YEAR, MOD(X, 50), DATE '1970-01-01'), 120, "
+                + "1 + MOD(X, 5) FROM SYSTEM_RANGE(1, ?)", ROWS);
+        firstFilmId = jdbcTemplate.queryForObject("SELECT MIN(film_id) FROM film", Long.class);
+        firstUserId = jdbcTemplate.queryForObject("SELECT MIN(user_id) FROM user_info", Long.class);
+
+        jdbcTemplate.update("INSERT INTO film_genre (film_id, genre_id) "
+                + "SELECT film_id, 1 + MOD(film_id, 6) FROM film");
+        // у каждого юзера 10 лайков и 10 друзей
+        jdbcTemplate.update("INSERT INTO film_like (film_id, user_id) "
+                + "SELECT ? + MOD(X, ?), ? + X / 10 FROM SYSTEM_RANGE(0, ?)",
+                firstFilmId, ROWS, firstUserId, ROWS * 10 - 1);
+        jdbcTemplate.update("UPDATE film SET like_count = (SELECT COUNT(*) FROM film_like "
+                + "WHERE film_like.film_id = film.film_id)");
+        jdbcTemplate.update("INSERT INTO friendship (user_id, friend_id, status) "
+                + "SELECT ? + X / 10, ? + MOD(X / 10 + 1 + MOD(X, 10) * 37, ?), FALSE FROM SYSTEM_RANGE(0, ?)",
+                firstUserId, firstUserId, ROWS, ROWS * 10 - 1);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterEach
+    void cleanDb() {
+        jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+        testSupport.reset();
+    }
+
+    @Test
+    void shouldNotScanLargeTablesForKeyedQueries() {
+        List<String> statements = captureStatements(this::callKeyedStorageMethods);
+        Assertions.assertTrue(statements.size() > 30, "Собрано слишком мало выражений: " + statements);
+
+        List<String> scans = new ArrayList<>();
+        for (String sql : statements) {
+            String plan = explain(sql);
+            String scannedTable = findFullScan(plan);
+            if (scannedTable != null) {
+                scans.add(scannedTable + " в " + sql + "\n" + plan);
+            }
+        }
+        Assertions.assertEquals(List.of(), scans, "Полный обход таблицы");
+    }
+
+    /**
+     * Большая таблица, которую план читает целиком: tableScan или индекс, первая колонка которого
+     * не участвует в условии (H2 показывает его как индекс с условием, но идёт по нему от начала).
+     * Индекс без условий допустим только для сортировки с лимитом – так берётся топ популярных.
+     */
+    private String findFullScan(String plan) {
+        Matcher scan = TABLE_SCAN.matcher(plan);
+        while (scan.find()) {
+            if (LARGE_TABLES.contains(scan.group(1))) {
+                return scan.group(1);
+            }
+        }
+
+        Matcher access = INDEX_ACCESS.matcher(plan);
+        while (access.find()) {
+            List<Map<String, Object>> leading = jdbcTemplate.queryForList("SELECT TABLE_NAME, COLUMN_NAME "
+                    + "FROM INFORMATION_SCHEMA.INDEX_COLUMNS WHERE INDEX_NAME = ? AND ORDINAL_POSITION = 1",
+                    access.group(1));
+            if (leading.isEmpty() || !LARGE_TABLES.contains((String) leading.get(0).get("TABLE_NAME"))) {
+                continue;
+            }
+            String table = (String) leading.get(0).get("TABLE_NAME");
+            String leadingColumn = (String) leading.get(0).get("COLUMN_NAME");
+            String conditions = access.group(2);
+            if (conditions == null) {
+                if (!plan.contains("index sorted") || !plan.contains("FETCH FIRST")) {
+                    return table;
+                }
+                continue;
+            }
+            // условия перечисляются не в порядке колонок индекса, поэтому ищется любое условие на первую
+            if (!Pattern.compile("(?<![.\\w])" + leadingColumn + "\\s").matcher(conditions).find()) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    private void callKeyedStorageMethods() {
+        long filmId = firstFilmId + 1;
+        long otherFilmId = firstFilmId + 2;
+        long userId = firstUserId + 1;
+        long otherUserId = firstUserId + 2;
+
+        genreStorage.invalidateCache();
+        mpaStorage.invalidateCache();
+        genreStorage.getGenreById(1L);
+        genreStorage.checkGenreExist(2L);
+        mpaStorage.getMpaById(1L);
+        mpaStorage.checkMpaExist(2L);
+
+        Film film = filmStorage.addFilm(newFilm());
+        filmStorage.addFilms(List.of(newFilm(), newFilm()));
+        film.setName("Renamed");
+        filmStorage.updateFilm(film);
+        filmStorage.getFilmsPage(filmId, 10);
+        filmStorage.getFilmById(filmId);
+        filmStorage.getFilmsByIds(List.of(filmId, otherFilmId));
+        filmStorage.checkFilmExist(filmId);
+        filmStorage.getExistingFilmIds(List.of(filmId, otherFilmId));
+        filmStorage.addLike(filmId, otherUserId + 100);
+        filmStorage.removeLike(filmId, otherUserId + 100);
+        filmStorage.applyLikes(List.of(
+                new LikeEvent(otherFilmId, otherUserId + 200, LikeOperation.LIKE),
+                new LikeEvent(otherFilmId, otherUserId + 200, LikeOperation.UNLIKE)));
+        filmStorage.getPopularFilms(10);
+        filmStorage.getPopularFilms(10, new PopularFilmsFilter(1L, null));
+        filmStorage.getPopularFilms(10, new PopularFilmsFilter(null, 1990));
+        filmStorage.getPopularFilms(10, new PopularFilmsFilter(1L, 1990));
+
+        User user = userStorage.addUser(newUser());
+        user.setName("Renamed");
+        userStorage.updateUser(user);
+        userStorage.getUsersPage(userId, 10);
+        userStorage.getUserById(userId);
+        userStorage.checkUserExist(userId);
+        userStorage.getExistingUserIds(List.of(userId, otherUserId));
+        userStorage.addFriend(user.getId(), userId);
+        userStorage.addFriend(userId, user.getId());
+        userStorage.removeFriend(userId, user.getId());
+        userStorage.getFriends(userId);
+        userStorage.getCommonFriends(userId, otherUserId);
+        userStorage.getFriendSuggestions(userId, 10);
+    }
+
+    /**
+     * Тексты выражений, выполненных во время {@code action}, по статистике запросов H2.
+     */
+    private List<String> captureStatements(Runnable action) {
+        jdbcTemplate.execute("SET QUERY_STATISTICS_MAX_ENTRIES 1000");
+        jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+        action.run();
+        List<String> statements = jdbcTemplate.queryForList(
+                "SELECT SQL_STATEMENT FROM INFORMATION_SCHEMA.QUERY_STATISTICS", String.class);
+        jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+        return statements.stream()
+                .filter(sql -> EXPLAINABLE.matcher(sql).lookingAt() && !sql.contains("INFORMATION_SCHEMA"))
+                .toList();
+    }
+
+    /**
+     * План выражения; параметры не важны для выбора индекса и подставляются как NULL.
+     */
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setObject(i, null);
+                }
+                try (ResultSet plan = statement.executeQuery()) {
+                    StringBuilder text = new StringBuilder();
+                    while (plan.next()) {
+                        text.append(plan.getString(1));
+                    }
+                    return text.toString();
+                }
+            }
+        });
+    }
+
+    private static Film newFilm() {
+        Film film = new Film();
+        film.setName("New film");
+        film.setDescription("description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(new MpaRating(1L, "G"));
+        film.setGenres(List.of(new Genre(1L, "Комедия")));
+        return film;
+    }
+
+    private static User newUser() {
+        User user = new User();
+        user.setName("New user");
+        user.setEmail("new@test.com");
+        user.setLogin("new");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.service.SingleFlight;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+public class SingleFlightTest {
+
+    @Test
+    void shouldShareOneLoadBetweenConcurrentCalls() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "film";
+                })));
+            }
+            waitUntil(() -> singleFlight.getCoalesced() == 7);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                Assertions.assertEquals("film", result.get(5, TimeUnit.SECONDS));
+            }
+        }
+
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(1, singleFlight.getExecuted());
+        Assertions.assertEquals("again", singleFlight.execute(1L, () -> "again"));
+        Assertions.assertEquals(2, singleFlight.getExecuted());
+    }
+
+    @Test
+    void shouldRethrowLoaderExceptionToEveryCaller() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+                    await(release);
+                    throw new NotFoundException("Фильм с ID 1 не найден.");
+                })));
+            }
+            waitUntil(() -> singleFlight.getCoalesced() == 2);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                Exception e = Assertions.assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+                Assertions.assertInstanceOf(NotFoundException.class, e.getCause());
+            }
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "Условие не выполнилось за 5 секунд");
+            Thread.sleep(1);
+        }
+    }
+}
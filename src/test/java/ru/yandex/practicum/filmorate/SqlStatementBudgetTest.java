@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "filmorate.sql.budget.max-statements=1")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import(TestSupport.class)
+public class SqlStatementBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestSupport testSupport;
+
+    @AfterEach
+    void cleanDb() {
+        testSupport.reset();
+    }
+
+    @Test
+    void shouldReportStatementCountInHeader() throws Exception {
+        mockMvc.perform(get("/genres"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-SQL-Statement-Count", "0"));
+
+        mockMvc.perform(post("/films")
+                        .content(objectMapper.writeValueAsString(newFilm()))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-SQL-Statement-Count", "1"));
+    }
+
+    @Test
+    void shouldFailRequestOverBudget() throws Exception {
+        mockMvc.perform(post("/films")
+                        .content(objectMapper.writeValueAsString(newFilm()))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/{id}", 1L))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.errorMessage",
+                        startsWith("Превышен бюджет SQL-выражений на запрос GET /films/1")))
+                .andExpect(jsonPath("$.request").value("GET /films/1"))
+                .andExpect(jsonPath("$.statements").value(2))
+                .andExpect(jsonPath("$.maxStatements").value(1))
+                .andExpect(header().string("X-SQL-Statement-Count", "2"));
+    }
+
+    private Film newFilm() {
+        Film film = new Film();
+        film.setName("Movie");
+        film.setDescription("A good movie");
+        film.setReleaseDate(LocalDate.now());
+        film.setDuration(120);
+        film.setMpa(new MpaRating(1L, "G"));
+        return film;
+    }
+}
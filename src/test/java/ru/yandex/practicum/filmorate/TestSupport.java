@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindBuffer;
+import ru.yandex.practicum.filmorate.storage.film.FilmLikeMatrix;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmTrendingIndex;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraphIndex;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Общее для тестов с контекстом Spring: создание юзеров и фильмов через API и очистка базы.
+ * Контекст переиспользуется между тестовыми классами, поэтому после очистки перестраиваются
+ * все индексы в памяти, а не только те, что проверяет конкретный тест.
+ */
+@TestComponent
+public class TestSupport {
+
+    @Autowired(required = false)
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LikeWriteBehindBuffer likeWriteBehindBuffer;
+
+    @Autowired
+    private FilmPopularityIndex filmPopularityIndex;
+
+    @Autowired
+    private FilmTrendingIndex filmTrendingIndex;
+
+    @Autowired
+    private FilmLikeMatrix filmLikeMatrix;
+
+    @Autowired
+    private FilmSearchIndex filmSearchIndex;
+
+    @Autowired
+    private FriendGraphIndex friendGraphIndex;
+
+    public void reset() {
+        likeWriteBehindBuffer.flush();
+        jdbcTemplate.execute("DELETE FROM friendship;");
+        jdbcTemplate.execute("DELETE FROM film_genre;");
+        jdbcTemplate.execute("DELETE FROM film_like;");
+        jdbcTemplate.execute("DELETE FROM film;");
+        jdbcTemplate.execute("ALTER TABLE film ALTER COLUMN film_id RESTART WITH 1;");
+        jdbcTemplate.execute("DELETE FROM user_info;");
+        jdbcTemplate.execute("ALTER TABLE user_info ALTER COLUMN user_id RESTART WITH 1;");
+        rebuildIndexes();
+    }
+
+    public void rebuildIndexes() {
+        filmPopularityIndex.rebuild();
+        filmTrendingIndex.rebuild();
+        filmLikeMatrix.rebuild();
+        filmSearchIndex.rebuild();
+        // граф строится, только если включён: иначе тест проверяет запросы через SQL
+        friendGraphIndex.warmUp();
+    }
+
+    public long createUser(String login) throws Exception {
+        User user = new User();
+        user.setName(login);
+        user.setEmail(login + "@test.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+
+        String response = mockMvc.perform(post("/users")
+                        .content(objectMapper.writeValueAsString(user))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, User.class).getId();
+    }
+
+    public long createFilm(String name) throws Exception {
+        return createFilm(newFilm(name));
+    }
+
+    public long createFilm(Film film) throws Exception {
+        String response = mockMvc.perform(post("/films")
+                        .content(objectMapper.writeValueAsString(film))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, Film.class).getId();
+    }
+
+    public static Film newFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("A good movie");
+        film.setReleaseDate(LocalDate.now());
+        film.setDuration(120);
+        film.setMpa(new MpaRating(1L, null));
+        return film;
+    }
+}
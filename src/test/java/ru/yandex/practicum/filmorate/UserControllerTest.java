@@ -8,23 +8,33 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MpaRating;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraphIndex;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import(TestSupport.class)
 public class UserControllerTest {
 
     @Autowired
@@ -36,11 +46,21 @@ public class UserControllerTest {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private FriendGraphIndex friendGraphIndex;
+
+    @Autowired
+    private TestSupport testSupport;
+
+    @Autowired
+    private UserStorage userStorage;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @AfterEach
     void cleanDb() {
-        jdbcTemplate.execute("DELETE FROM friendship;");
-        jdbcTemplate.execute("DELETE FROM user_info;");
-        jdbcTemplate.execute("ALTER TABLE user_info ALTER COLUMN user_id RESTART WITH 1;");
+        testSupport.reset();
     }
 
     @Test
@@ -379,4 +399,235 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.length()").value(1))
                 .andExpect(jsonPath("$[0].name").value("User3"));
     }
+
+    @Test
+    void shouldPageAndStreamUsers() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            User user = new User();
+            user.setName("User" + i);
+            user.setEmail("user" + i + "@test.com");
+            user.setLogin("user" + i + "Login");
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+
+            mockMvc.perform(post("/users")
+                            .content(objectMapper.writeValueAsString(user))
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/users").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(2));
+
+        mockMvc.perform(get("/users").param("after", "2").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(3));
+
+        mockMvc.perform(get("/users").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/users").param("limit", "1001"))
+                .andExpect(status().isBadRequest());
+
+        MvcResult streamResult = mockMvc.perform(get("/users").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(streamResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        Assertions.assertEquals(3, lines.size());
+        Assertions.assertEquals("user3Login", objectMapper.readValue(lines.get(2), User.class).getLogin());
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownFriend() throws Exception {
+        User user = new User();
+        user.setName("User1");
+        user.setEmail("user1@test.com");
+        user.setLogin("user1Login");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+
+        MvcResult result = mockMvc.perform(post("/users")
+                        .content(objectMapper.writeValueAsString(user))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+        Long userId = objectMapper.readValue(result.getResponse().getContentAsString(), User.class).getId();
+
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", userId, 999L))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errorMessage").value("Пользователь с ID 999 не найден."));
+
+        mockMvc.perform(delete("/users/{id}/friends/{friendId}", 999L, userId))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errorMessage").value("Пользователь с ID 999 не найден."));
+
+        mockMvc.perform(get("/users/{id}/friends", 999L))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/users/{id}/friends", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void shouldUpdateCommonFriendsAfterRemoval() throws Exception {
+        for (int i = 1; i <= 4; i++) {
+            User user = new User();
+            user.setName("User" + i);
+            user.setEmail("user" + i + "@test.com");
+            user.setLogin("user" + i + "Login");
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            mockMvc.perform(post("/users")
+                            .content(objectMapper.writeValueAsString(user))
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", 1L, 3L)).andExpect(status().isOk());
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", 1L, 4L)).andExpect(status().isOk());
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", 2L, 4L)).andExpect(status().isOk());
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", 2L, 3L)).andExpect(status().isOk());
+
+        Assertions.assertTrue(friendGraphIndex.isReady());
+        mockMvc.perform(get("/users/{id}/friends/common/{otherId}", 1L, 2L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[1].id").value(4));
+
+        mockMvc.perform(delete("/users/{id}/friends/{friendId}", 2L, 3L)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/{id}/friends/common/{otherId}", 1L, 2L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(4));
+    }
+
+    @Test
+    void shouldSuggestFriendsByMutualFriends() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            User user = new User();
+            user.setName("User" + i);
+            user.setEmail("user" + i + "@test.com");
+            user.setLogin("user" + i + "Login");
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            mockMvc.perform(post("/users")
+                            .content(objectMapper.writeValueAsString(user))
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", 1L, 2L)).andExpect(status().isOk());
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", 1L, 3L)).andExpect(status().isOk());
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", 5L, 2L)).andExpect(status().isOk());
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", 4L, 2L)).andExpect(status().isOk());
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", 4L, 3L)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/{id}/friends/suggestions", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(4))
+                .andExpect(jsonPath("$[1].id").value(5));
+
+        mockMvc.perform(get("/users/{id}/friends/suggestions", 1L).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(4));
+
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", 1L, 4L)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/{id}/friends/suggestions", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(5));
+
+        mockMvc.perform(get("/users/{id}/friends/suggestions", 999L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldRecommendFilmsLikedByUsersWithOverlappingLikes() throws Exception {
+        for (int i = 1; i <= 4; i++) {
+            User user = new User();
+            user.setName("User" + i);
+            user.setEmail("user" + i + "@test.com");
+            user.setLogin("user" + i + "Login");
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            mockMvc.perform(post("/users")
+                            .content(objectMapper.writeValueAsString(user))
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+        }
+        for (int i = 1; i <= 5; i++) {
+            Film film = new Film();
+            film.setName("Film" + i);
+            film.setDescription("A good movie");
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(120);
+            film.setMpa(new MpaRating(1L, "G"));
+            mockMvc.perform(post("/films")
+                            .content(objectMapper.writeValueAsString(film))
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", 1L, 1L)).andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", 2L, 1L)).andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", 1L, 2L)).andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", 2L, 2L)).andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", 3L, 2L)).andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", 1L, 3L)).andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", 4L, 3L)).andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", 5L, 4L)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/{id}/recommendations", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[0].mpa.id").value(1))
+                .andExpect(jsonPath("$[1].id").value(4));
+
+        mockMvc.perform(delete("/films/{id}/like/{userId}", 1L, 3L)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/{id}/recommendations", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(3));
+
+        mockMvc.perform(get("/users/{id}/recommendations", 4L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+
+        mockMvc.perform(get("/users/{id}/recommendations", 999L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldChangeFriendGraphOnlyAfterCommit() throws Exception {
+        long first = testSupport.createUser("first");
+        long second = testSupport.createUser("second");
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            userStorage.addFriend(first, second);
+            status.setRollbackOnly();
+        });
+        Assertions.assertArrayEquals(new long[0], friendGraphIndex.getFriendIds(first));
+
+        userStorage.addFriend(first, second);
+        Assertions.assertArrayEquals(new long[]{second}, friendGraphIndex.getFriendIds(first));
+
+        transaction.executeWithoutResult(status -> {
+            userStorage.removeFriend(first, second);
+            status.setRollbackOnly();
+        });
+        Assertions.assertArrayEquals(new long[]{second}, friendGraphIndex.getFriendIds(first));
+    }
 }
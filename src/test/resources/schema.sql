@@ -15,9 +15,20 @@ CREATE TABLE IF NOT EXISTS film (
     release_date DATE NOT NULL,
     duration INT NOT NULL,
     rating_id INT NOT NULL,
+    like_count INT NOT NULL DEFAULT 0,
     FOREIGN KEY (rating_id) REFERENCES mpa_rating (rating_id)
 );
 
+ALTER TABLE film ADD COLUMN IF NOT EXISTS like_count INT NOT NULL DEFAULT 0;
+
+ALTER TABLE film ADD COLUMN IF NOT EXISTS release_year INT GENERATED ALWAYS AS (EXTRACT(YEAR FROM release_date));
+
+CREATE INDEX IF NOT EXISTS film_rating_idx ON film (rating_id);
+
+CREATE INDEX IF NOT EXISTS film_like_count_idx ON film (like_count DESC, film_id);
+
+CREATE INDEX IF NOT EXISTS film_year_like_count_idx ON film (release_year, like_count DESC, film_id);
+
 CREATE TABLE IF NOT EXISTS user_info (
     user_id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
@@ -34,14 +45,23 @@ CREATE TABLE IF NOT EXISTS film_genre (
     FOREIGN KEY (genre_id) REFERENCES genre (genre_id)
 );
 
+CREATE INDEX IF NOT EXISTS film_genre_genre_idx ON film_genre (genre_id, film_id);
+
 CREATE TABLE IF NOT EXISTS film_like (
     film_id INT,
     user_id INT,
+    liked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     PRIMARY KEY (film_id, user_id),
     FOREIGN KEY (film_id) REFERENCES film (film_id),
     FOREIGN KEY (user_id) REFERENCES user_info (user_id)
 );
 
+ALTER TABLE film_like ADD COLUMN IF NOT EXISTS liked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS film_like_liked_at_idx ON film_like (liked_at);
+
+CREATE INDEX IF NOT EXISTS film_like_user_idx ON film_like (user_id, film_id);
+
 CREATE TABLE IF NOT EXISTS friendship (
     user_id INT,
     friend_id INT,
@@ -49,4 +69,6 @@ CREATE TABLE IF NOT EXISTS friendship (
     PRIMARY KEY (user_id, friend_id),
     FOREIGN KEY (user_id) REFERENCES user_info (user_id),
     FOREIGN KEY (friend_id) REFERENCES user_info (user_id)
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS friendship_friend_idx ON friendship (friend_id, user_id);